@@ -0,0 +1,64 @@
+package minemaze.benchmarks;
+
+import minemaze.MapGrid;
+import minemaze.MineMazeEngine;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Generated square maps for the benchmarks: a border, the pusher and the bomber in the
+ * top-left corner, a target in the bottom-right one, and rocks (70%) and hard rocks (30%)
+ * scattered over the rest at the given density. The same size, density and seed always
+ * give the same map, so numbers are comparable between runs.
+ */
+final class BenchmarkMaps {
+    static final long SEED = 30006L;
+
+    private BenchmarkMaps() {}
+
+    static String generate(int size, double density, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(size * (size + 1));
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                char c;
+                if (x == 0 || y == 0 || x == size - 1 || y == size - 1) c = 'x';
+                else if (x == 1 && y == 1) c = 'P';
+                else if (x == 2 && y == 1) c = 'B';
+                else if (x == size - 2 && y == size - 2) c = 'o';
+                else if (x <= 3 && y <= 3) c = '.'; // room to start moving
+                else if (random.nextDouble() < density) c = random.nextDouble() < 0.7 ? 'r' : 'h';
+                else c = '.';
+                sb.append(c);
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    static MapGrid load(String text) {
+        try {
+            return MapGrid.load(new StringReader(text), "benchmark");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** A game on the map in manual mode, with every grid item on the board as an entity. */
+    static MineMazeEngine newEngine(MapGrid grid) {
+        Properties properties = new Properties();
+        properties.setProperty("movement.mode", "manual");
+        properties.setProperty("simulationPeriod", "50");
+        properties.setProperty("duration", "1000");
+        properties.setProperty("ores.winning", "1");
+        properties.setProperty("bomb.max", "1000000");
+        properties.setProperty("statistics.file", "");
+        MineMazeEngine engine = new MineMazeEngine(properties, grid);
+        engine.getBoard().materialise(0, 0, grid.getNbHorzCells() - 1, grid.getNbVertCells() - 1);
+        return engine;
+    }
+}
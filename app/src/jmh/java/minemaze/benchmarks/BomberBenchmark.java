@@ -0,0 +1,108 @@
+package minemaze.benchmarks;
+
+import ch.aplu.jgamegrid.Location;
+import minemaze.Board;
+import minemaze.Bomb;
+import minemaze.Bomber;
+import minemaze.Entity;
+import minemaze.MapGrid;
+import minemaze.MineMaze;
+import minemaze.MineMazeEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bomber routing and bomb explosions.
+ * Run with: gradle :app:jmh -PjmhArgs='BomberBenchmark'
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BomberBenchmark {
+    private static final int TARGETS = 256; // more than the bomber's path cache holds
+    private static final int BOMBS = 64;
+
+    @Param({"32", "128", "512"})
+    public int size;
+
+    @Param({"0.05", "0.2"})
+    public double density;
+
+    private MineMazeEngine engine;
+    private Board board;
+    private Bomber bomber;
+    private Location[] targets;
+    private int next;
+    private Location[] bombSites;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        MapGrid grid = BenchmarkMaps.load(BenchmarkMaps.generate(size, density, BenchmarkMaps.SEED));
+        engine = BenchmarkMaps.newEngine(grid);
+        board = engine.getBoard();
+        bomber = engine.getBomber();
+
+        Random random = new Random(BenchmarkMaps.SEED);
+        targets = new Location[TARGETS];
+        for (int i = 0; i < TARGETS; i++) {
+            targets[i] = new Location(1 + random.nextInt(size - 2), 1 + random.nextInt(size - 2));
+        }
+        bombSites = new Location[BOMBS];
+        for (int i = 0; i < BOMBS; i++) {
+            bombSites[i] = new Location(1 + random.nextInt(size - 2), 1 + random.nextInt(size - 2));
+        }
+    }
+
+    /** Route to a different target each time, so most queries miss the path cache. */
+    @Benchmark
+    public Bomber startMoveToTarget() {
+        bomber.startMoveToTarget(targets[next++ % TARGETS], board);
+        return bomber;
+    }
+
+    /** Route to the same target every time: a path cache hit. */
+    @Benchmark
+    public Bomber startMoveToTargetCached() {
+        bomber.startMoveToTarget(targets[0], board);
+        return bomber;
+    }
+
+    @State(Scope.Thread)
+    public static class Rocks {
+        final List<Entity> rocks = new ArrayList<>();
+        Board board;
+
+        @Setup(Level.Trial)
+        public void setUp(BomberBenchmark benchmark) {
+            board = benchmark.board;
+            rocks.addAll(board.getEntities(MineMaze.ElementType.BOULDER));
+            rocks.addAll(board.getEntities(MineMaze.ElementType.HARD_ROCK));
+        }
+
+        /** Put back the rocks the bombs destroyed, so every iteration blasts the same board. */
+        @Setup(Level.Iteration)
+        public void restore() {
+            for (Entity rock : rocks) {
+                if (!rock.isOnBoard()) board.add(rock, rock.getLocation());
+            }
+        }
+    }
+
+    /** One timed call per iteration, on the board as restored before it. */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 200, batchSize = 1)
+    @Measurement(iterations = 1000, batchSize = 1)
+    @OperationsPerInvocation(BOMBS)
+    public Board explode(Rocks rocks) {
+        for (Location site : bombSites) new Bomb(site, 1, 1, board, engine.getStatistics()).explode();
+        return board;
+    }
+}
@@ -0,0 +1,59 @@
+package minemaze.benchmarks;
+
+import minemaze.MapGrid;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Map loading: parsing the text format and opening the memory-mapped binary format.
+ * Run with: gradle :app:jmh -PjmhArgs='MapGridBenchmark'
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapGridBenchmark {
+    @Param({"32", "128", "512"})
+    public int size;
+
+    @Param({"0.05", "0.2"})
+    public double density;
+
+    private String text;
+    private Path binary;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        text = BenchmarkMaps.generate(size, density, BenchmarkMaps.SEED);
+        binary = Files.createTempFile("minemaze-benchmark", MapGrid.BINARY_EXTENSION);
+        BenchmarkMaps.load(text).writeBinary(binary);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(binary);
+    }
+
+    /** Parse and validate a text map. */
+    @Benchmark
+    public MapGrid loadText() {
+        return BenchmarkMaps.load(text);
+    }
+
+    @Benchmark
+    public MapGrid openBinary() throws IOException {
+        return MapGrid.openBinary(binary);
+    }
+
+    /** The built-in 20x11 map. */
+    @Benchmark
+    public MapGrid builtIn() {
+        return new MapGrid();
+    }
+}
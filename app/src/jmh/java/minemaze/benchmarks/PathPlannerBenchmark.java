@@ -0,0 +1,61 @@
+package minemaze.benchmarks;
+
+import minemaze.PathPlanner;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PathPlanner queries between random free cells of square mazes with random rock fields,
+ * unbounded by fuel.
+ * Run with: gradle :app:jmh -PjmhArgs='PathPlannerBenchmark'
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathPlannerBenchmark {
+    private static final int QUERIES = 256;
+
+    @Param({"50", "100", "250", "500", "1000"})
+    public int size;
+
+    @Param({"0.25"})
+    public double density;
+
+    private PathPlanner planner;
+    private PathPlanner.StepRule rule;
+    private int[] starts;
+    private int[] goals;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(BenchmarkMaps.SEED + size);
+        boolean[] blocked = new boolean[size * size];
+        for (int i = 0; i < blocked.length; i++) blocked[i] = random.nextDouble() < density;
+        planner = new PathPlanner(size, size);
+        rule = (x, y, dx, dy, steps) -> !blocked[y * size + x];
+        starts = new int[QUERIES];
+        goals = new int[QUERIES];
+        for (int q = 0; q < QUERIES; q++) {
+            starts[q] = randomFreeCell(random, blocked);
+            goals[q] = randomFreeCell(random, blocked);
+        }
+    }
+
+    private static int randomFreeCell(Random random, boolean[] blocked) {
+        int cell;
+        do { cell = random.nextInt(blocked.length); } while (blocked[cell]);
+        return cell;
+    }
+
+    @Benchmark
+    public int plan() {
+        int q = next++ & (QUERIES - 1);
+        return planner.plan(starts[q], goals[q], Integer.MAX_VALUE, rule);
+    }
+}
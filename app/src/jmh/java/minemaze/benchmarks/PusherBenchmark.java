@@ -0,0 +1,87 @@
+package minemaze.benchmarks;
+
+import ch.aplu.jgamegrid.Location;
+import minemaze.MapGrid;
+import minemaze.MineMazeEngine;
+import minemaze.Pusher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pusher path planning and movement.
+ * Run with: gradle :app:jmh -PjmhArgs='PusherBenchmark'
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PusherBenchmark {
+    private static final int STEPS = 50;
+
+    @Param({"32", "128", "512"})
+    public int size;
+
+    @Param({"0.05", "0.2"})
+    public double density;
+
+    private MapGrid grid;
+    private MineMazeEngine engine;
+    private Pusher pusher;
+    private Location[] targets;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        grid = BenchmarkMaps.load(BenchmarkMaps.generate(size, density, BenchmarkMaps.SEED));
+        engine = BenchmarkMaps.newEngine(grid);
+        pusher = engine.getPusher();
+        targets = new Location[] {
+                new Location(size - 2, size - 2), new Location(size - 2, 1),
+                new Location(1, size - 2), new Location(size / 2, size / 2)};
+    }
+
+    /** Plan from the start corner towards far cells; the path is bounded by the fuel. */
+    @Benchmark
+    public Pusher guideToLocation() {
+        pusher.guideToLocation(targets[next++ & 3]);
+        return pusher;
+    }
+
+    @State(Scope.Thread)
+    public static class Walk {
+        MineMazeEngine engine;
+        byte[] start;
+
+        /** A game with the pusher about to walk to the far corner. */
+        @Setup(Level.Trial)
+        public void setUp(PusherBenchmark benchmark) {
+            engine = BenchmarkMaps.newEngine(benchmark.grid);
+            engine.getPusher().guideToLocation(new Location(benchmark.size - 2, benchmark.size - 2));
+            start = engine.snapshot();
+        }
+
+        /** Put the pusher back at the start of its path, outside the timed shot. */
+        @Setup(Level.Iteration)
+        public void rewind() {
+            engine.restore(start);
+        }
+    }
+
+    /**
+     * Walk STEPS steps of the path. The walk uses the path up, so each iteration is one
+     * timed call from the rewound game; the STEPS steps keep the timer overhead small.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 200, batchSize = 1)
+    @Measurement(iterations = 1000, batchSize = 1)
+    @OperationsPerInvocation(STEPS)
+    public Location executeNextPathStep(Walk walk) {
+        Pusher walker = walk.engine.getPusher();
+        for (int i = 0; i < STEPS; i++) walker.executeNextPathStep();
+        return walker.getLocation();
+    }
+}
@@ -0,0 +1,52 @@
+package minemaze.benchmarks;
+
+import minemaze.Board;
+import minemaze.MapGrid;
+import minemaze.TickLog;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-tick log recording (what updateLogResult used to do) and formatting of a log line.
+ * Run with: gradle :app:jmh -PjmhArgs='TickLogBenchmark'
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickLogBenchmark {
+    @Param({"32", "128", "512"})
+    public int size;
+
+    @Param({"0.05", "0.2"})
+    public double density;
+
+    private Board board;
+    private TickLog log;
+    private final StringBuilder line = new StringBuilder();
+    private int tick;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MapGrid grid = BenchmarkMaps.load(BenchmarkMaps.generate(size, density, BenchmarkMaps.SEED));
+        board = BenchmarkMaps.newEngine(grid).getBoard();
+        log = new TickLog(1024); // a sliding window, so the log does not grow without bound
+        log.record(0, 100, board);
+    }
+
+    @Benchmark
+    public TickLog record() {
+        log.record(++tick, 100, board);
+        return log;
+    }
+
+    @Benchmark
+    public StringBuilder appendLine() {
+        line.setLength(0);
+        log.appendLine(line, log.size() - 1);
+        return line;
+    }
+}
@@ -0,0 +1,151 @@
+package minemaze;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * BatchRunner
+ * ------------
+ * Runs many games headless, one MineMazeEngine per properties file, spread over a
+ * fixed thread pool (one thread per core by default; the games are CPU-bound), and
+ * prints one summary line per file. The games record into one shared GameStatistics,
+ * written to the statistics file every ten seconds and when the batch ends.
+ * Usage: BatchRunner [--threads N] [--statistics FILE] <file-or-directory>...
+ * Directories contribute every *.properties file they contain.
+ */
+public final class BatchRunner {
+
+    /** Outcome of one game; error is non-null if the game could not be run. */
+    public record Result(String name, boolean won, int ticks, int finalFuel, int oresCollected,
+                         long elapsedNanos, String error) {
+    }
+
+    private static final long STATISTICS_INTERVAL_MS = 10_000;
+
+    private BatchRunner() {}
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path statisticsFile = Path.of("statistics.txt");
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads")) threads = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--statistics")) statisticsFile = Path.of(args[++i]);
+            else inputs.add(Path.of(args[i]));
+        }
+        if (inputs.isEmpty()) {
+            System.err.println("Usage: BatchRunner [--threads N] [--statistics FILE] <file-or-directory>...");
+            System.exit(2);
+        }
+
+        List<Path> files = collectPropertiesFiles(inputs);
+        GameStatistics statistics = new GameStatistics();
+        StatisticsExporter exporter = new StatisticsExporter(statistics, statisticsFile, STATISTICS_INTERVAL_MS);
+        List<Result> results;
+        try {
+            results = run(files, threads, statistics);
+        } finally {
+            exporter.close();
+        }
+        printSummary(System.out, results);
+    }
+
+    /** Expand directories into their *.properties files, in name order. */
+    public static List<Path> collectPropertiesFiles(List<Path> inputs) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path input : inputs) {
+            if (Files.isDirectory(input)) {
+                try (Stream<Path> listing = Files.list(input)) {
+                    listing.filter(p -> p.getFileName().toString().endsWith(".properties"))
+                            .sorted()
+                            .forEach(files::add);
+                }
+            } else {
+                files.add(input);
+            }
+        }
+        return files;
+    }
+
+    /** Run every file on a pool of the given size; results are in input order. */
+    public static List<Result> run(List<Path> files, int threads) throws InterruptedException {
+        return run(files, threads, new GameStatistics());
+    }
+
+    /** As {@link #run(List, int)}, with every game recording into the given statistics. */
+    public static List<Result> run(List<Path> files, int threads, GameStatistics statistics)
+            throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (Path file : files) futures.add(pool.submit(() -> runOne(file, statistics)));
+
+            List<Result> results = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    results.add(failed(files.get(i), 0, e.getCause()));
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Run a single game headless to completion. */
+    public static Result runOne(Path file) {
+        return runOne(file, new GameStatistics());
+    }
+
+    /** Run a single game headless to completion, recording into the given statistics. */
+    public static Result runOne(Path file, GameStatistics statistics) {
+        long start = System.nanoTime();
+        try {
+            Properties properties = PropertiesLoader.loadPropertiesFile(file);
+            // Only the outcome is kept, so the log needs no more than the tick being written
+            properties.putIfAbsent("log.capacity", String.valueOf(GameConfig.STREAMED_LOG_CAPACITY));
+            MapGrid grid = MapGrid.fromProperties(properties, file.toAbsolutePath().getParent());
+            MineMazeEngine engine = new MineMazeEngine(new GameConfig(properties), grid, statistics);
+            engine.setLogSink(LogSink.discard());
+            engine.setStatisticsFile(null); // the batch writes the shared statistics
+            engine.run();
+            Pusher pusher = engine.getPusher();
+            return new Result(file.getFileName().toString(), engine.isWon(), engine.getTickCount(),
+                    pusher != null ? pusher.getFuel() : 0, engine.getOresCollected(),
+                    System.nanoTime() - start, null);
+        } catch (IOException | RuntimeException e) {
+            return failed(file, System.nanoTime() - start, e);
+        }
+    }
+
+    private static Result failed(Path file, long elapsedNanos, Throwable cause) {
+        return new Result(file.getFileName().toString(), false, 0, 0, 0, elapsedNanos, String.valueOf(cause));
+    }
+
+    public static void printSummary(PrintStream out, List<Result> results) {
+        out.printf("%-30s %-6s %8s %8s %6s %10s%n", "file", "result", "ticks", "fuel", "ores", "ms");
+        int won = 0;
+        for (Result r : results) {
+            if (r.error() != null) {
+                out.printf("%-30s %-6s %s%n", r.name(), "ERROR", r.error());
+                continue;
+            }
+            if (r.won()) won++;
+            out.printf("%-30s %-6s %8d %8d %6d %10.1f%n", r.name(), r.won() ? "won" : "lost",
+                    r.ticks(), r.finalFuel(), r.oresCollected(), r.elapsedNanos() / 1e6);
+        }
+        out.printf("%d of %d games won%n", won, results.size());
+    }
+}
@@ -0,0 +1,369 @@
+package minemaze;
+
+import ch.aplu.jgamegrid.Location;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+
+/**
+ * Board
+ * ------
+ * Headless replacement for the GameGrid actor scene: keeps every entity on the map,
+ * grouped per element type in list order (below), and answers the location queries
+ * the game rules need.
+ * Visible entities are also indexed per cell as a bitmask of element types
+ * (bit = ElementType.ordinal()), so presence and passability tests are one array read.
+ * Walls are baked into the same index from the MapGrid: BORDER and OUTSIDE cells, and
+ * every location off the map, carry the BORDER bit.
+ * The map is split into CHUNK_SIZE square chunks. A chunk's index arrays are allocated
+ * the first time an entity enters it, and the static items of the map (targets, rocks,
+ * boosters, ...) stay as MapGrid cells until the chunk is materialised, near a machine or
+ * on screen. Until then, occupancy queries read those cells straight from the grid, so the
+ * rules see the same board either way. Creating a board reads no map cells.
+ * Entities of a type are listed in a fixed order: those added before the map's items were
+ * first materialised, then the map's items by the cell they started on, then those added
+ * since. forEachVisible merges in the items still in the grid, so it lists a type exactly
+ * as if the whole map had been materialised at the start, whichever chunks are.
+ */
+public class Board {
+    private static final int TYPE_COUNT = MineMaze.ElementType.values().length;
+    private static final int WALL = bit(MineMaze.ElementType.BORDER);
+    private static final MineMaze.ElementType[] STATIC_TYPES = {
+            MineMaze.ElementType.TARGET, MineMaze.ElementType.BOULDER, MineMaze.ElementType.HARD_ROCK,
+            MineMaze.ElementType.BOOSTER, MineMaze.ElementType.ORE, MineMaze.ElementType.FUEL};
+    private static final int[] GRID_BITS = new int[TYPE_COUNT]; // occupancy of an unmaterialised cell, per grid type
+
+    static {
+        GRID_BITS[MineMaze.ElementType.BORDER.ordinal()] = WALL;
+        GRID_BITS[MineMaze.ElementType.OUTSIDE.ordinal()] = WALL;
+        for (MineMaze.ElementType t : STATIC_TYPES) GRID_BITS[t.ordinal()] = bit(t);
+    }
+
+    public static final int CHUNK_SIZE = 16;
+    private static final int CHUNK_SHIFT = 4;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int CHUNK_CELLS = CHUNK_SIZE * CHUNK_SIZE;
+
+    private final MapGrid grid;
+    private final EnumMap<MineMaze.ElementType, List<Entity>> entities = new EnumMap<>(MineMaze.ElementType.class);
+    private final EnumMap<MineMaze.ElementType, List<Entity>> readOnlyEntities = new EnumMap<>(MineMaze.ElementType.class);
+
+    // Occupancy index over visible entities, per chunk: cell index = (y % CHUNK_SIZE) * CHUNK_SIZE + x % CHUNK_SIZE
+    private final int width;
+    private final int height;
+    private final int chunksX;
+    private final int chunksY;
+    private final int[][] occupancy; // null until an entity enters the chunk
+    private final short[][] counts; // entities per (cell, type), so a bit clears only when the last one leaves
+    private final boolean[] materialised; // static items of the chunk are entities rather than grid cells
+    private int materialisedCount;
+    private final long[] typeVersion = new long[TYPE_COUNT]; // bumped whenever a type's occupancy changes
+
+    // List order (Entity.getOrder): added early < GRID_ORDER + start cell of a map item < lateOrder <= added late
+    private static final long GRID_ORDER = 1L << 32;
+    private static final int[] NO_ITEMS = {};
+    private final long lateOrder;
+    private long nextOrder = 0;
+    // Per chunk row, then per type: packed positions of the map's items in the row's chunks
+    // that are not materialised, row-major; null until the row is first listed
+    private final int[][][] gridItems;
+
+    public Board(MapGrid grid) {
+        this.grid = grid;
+        this.width = grid.getNbHorzCells();
+        this.height = grid.getNbVertCells();
+        this.chunksX = (width + CHUNK_MASK) >> CHUNK_SHIFT;
+        this.chunksY = (height + CHUNK_MASK) >> CHUNK_SHIFT;
+        int chunks = chunksX * chunksY;
+        this.occupancy = new int[chunks][];
+        this.counts = new short[chunks][];
+        this.materialised = new boolean[chunks];
+        for (MineMaze.ElementType t : MineMaze.ElementType.values()) {
+            List<Entity> list = new ArrayList<>();
+            entities.put(t, list);
+            readOnlyEntities.put(t, Collections.unmodifiableList(list));
+        }
+        this.lateOrder = GRID_ORDER + (long) width * height;
+        this.gridItems = new int[chunksY][][];
+    }
+
+    // One pass over the cells of the row's chunks that are not materialised; the index holds
+    // the items only, not a value per cell
+    private int[][] gridItems(int chunkRow) {
+        int[][] items = gridItems[chunkRow];
+        if (items != null) return items;
+        items = new int[TYPE_COUNT][];
+        int[] sizes = new int[TYPE_COUNT];
+        Arrays.fill(items, NO_ITEMS);
+        int yEnd = Math.min(height, (chunkRow + 1) << CHUNK_SHIFT);
+        for (int y = chunkRow << CHUNK_SHIFT; y < yEnd; y++) {
+            for (int x = 0; x < width; x++) {
+                if (materialised[chunkOf(x, y)]) {
+                    x |= CHUNK_MASK; // on to the next chunk
+                    continue;
+                }
+                MineMaze.ElementType t = grid.getCell(x, y);
+                if ((GRID_BITS[t.ordinal()] & ~WALL) == 0) continue;
+                int i = t.ordinal();
+                if (sizes[i] == items[i].length) items[i] = Arrays.copyOf(items[i], Math.max(16, sizes[i] * 2));
+                items[i][sizes[i]++] = TickLog.pack(x, y);
+            }
+        }
+        for (int i = 0; i < TYPE_COUNT; i++) items[i] = Arrays.copyOf(items[i], sizes[i]);
+        return gridItems[chunkRow] = items;
+    }
+
+    // Drop a chunk's items from its row's index once they are entities
+    private void dropGridItems(int chunkX, int chunkY) {
+        int[][] items = gridItems[chunkY];
+        if (items == null) return;
+        for (int i = 0; i < TYPE_COUNT; i++) {
+            int[] kept = items[i];
+            int n = 0;
+            for (int p : items[i]) {
+                if (TickLog.x(p) >> CHUNK_SHIFT != chunkX) kept[n++] = p;
+            }
+            if (n < kept.length) items[i] = Arrays.copyOf(kept, n);
+        }
+    }
+
+    /** @return the occupancy bit of an element type, to be combined into masks */
+    public static int bit(MineMaze.ElementType type) {
+        return 1 << type.ordinal();
+    }
+
+    public void add(Entity entity, Location location) {
+        add(entity, location, nextOrder++);
+    }
+
+    /** Add the entity at its place in its type's list, given by order (see Entity.getOrder). */
+    void add(Entity entity, Location location, long order) {
+        entity.setLocation(location);
+        entity.attach(this, order);
+        List<Entity> list = entities.get(entity.getType());
+        int low = 0, high = list.size(); // first entity with a higher order; usually the end
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (list.get(mid).getOrder() <= order) low = mid + 1;
+            else high = mid;
+        }
+        list.add(low, entity);
+        if (entity.isVisible()) occupy(entity.getLocation(), entity.getType());
+    }
+
+    public void remove(Entity entity) {
+        if (entities.get(entity.getType()).remove(entity)) {
+            if (entity.isVisible()) vacate(entity.getLocation(), entity.getType());
+            entity.detach();
+        }
+    }
+
+    /** @return bitmask of the element types visible at the location; the BORDER bit outside the map */
+    public int occupancyAt(Location location) {
+        return occupancyAt(location.x, location.y);
+    }
+
+    public int occupancyAt(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) return WALL;
+        int chunk = chunkOf(x, y);
+        int[] cells = occupancy[chunk];
+        if (cells == null) return GRID_BITS[grid.getCell(x, y).ordinal()];
+        int bits = cells[cellOf(x, y)];
+        return materialised[chunk] ? bits : bits | GRID_BITS[grid.getCell(x, y).ordinal()];
+    }
+
+    /** @return true if a visible entity of the type is at the location */
+    public boolean has(Location location, MineMaze.ElementType type) {
+        return (occupancyAt(location) & bit(type)) != 0;
+    }
+
+    void occupy(Location location, MineMaze.ElementType type) {
+        if (!isInside(location)) return;
+        int chunk = chunkOf(location.x, location.y);
+        if (occupancy[chunk] == null) allocate(chunk);
+        int cell = cellOf(location.x, location.y);
+        if (counts[chunk][cell * TYPE_COUNT + type.ordinal()]++ == 0) occupancy[chunk][cell] |= bit(type);
+        typeVersion[type.ordinal()]++;
+    }
+
+    void vacate(Location location, MineMaze.ElementType type) {
+        if (!isInside(location)) return;
+        int chunk = chunkOf(location.x, location.y);
+        int cell = cellOf(location.x, location.y);
+        if (--counts[chunk][cell * TYPE_COUNT + type.ordinal()] == 0) occupancy[chunk][cell] &= ~bit(type);
+        typeVersion[type.ordinal()]++;
+    }
+
+    private int chunkOf(int x, int y) {
+        return (y >> CHUNK_SHIFT) * chunksX + (x >> CHUNK_SHIFT);
+    }
+
+    private static int cellOf(int x, int y) {
+        return (y & CHUNK_MASK) * CHUNK_SIZE + (x & CHUNK_MASK);
+    }
+
+    private void allocate(int chunk) {
+        int[] cells = new int[CHUNK_CELLS];
+        int x0 = (chunk % chunksX) << CHUNK_SHIFT;
+        int y0 = (chunk / chunksX) << CHUNK_SHIFT;
+        for (int y = y0; y < Math.min(height, y0 + CHUNK_SIZE); y++) {
+            for (int x = x0; x < Math.min(width, x0 + CHUNK_SIZE); x++) {
+                cells[cellOf(x, y)] = GRID_BITS[grid.getCell(x, y).ordinal()] & WALL;
+            }
+        }
+        occupancy[chunk] = cells;
+        counts[chunk] = new short[CHUNK_CELLS * TYPE_COUNT];
+    }
+
+    /** Materialise the chunks within radius chunks of the location, e.g. around a machine. */
+    public void materialiseAround(Location location, int radius) {
+        int x = Math.max(0, Math.min(width - 1, location.x));
+        int y = Math.max(0, Math.min(height - 1, location.y));
+        materialise(x - radius * CHUNK_SIZE, y - radius * CHUNK_SIZE,
+                x + radius * CHUNK_SIZE, y + radius * CHUNK_SIZE);
+    }
+
+    /**
+     * Turn the static items of every chunk overlapping the cell rectangle (inclusive) into
+     * entities, each at the place of the cell it starts on in its type's list.
+     */
+    public void materialise(int x0, int y0, int x1, int y1) {
+        if (nextOrder < lateOrder) nextOrder = lateOrder;
+        int cx0 = Math.max(0, x0) >> CHUNK_SHIFT, cx1 = Math.min(width - 1, x1) >> CHUNK_SHIFT;
+        int cy0 = Math.max(0, y0) >> CHUNK_SHIFT, cy1 = Math.min(height - 1, y1) >> CHUNK_SHIFT;
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                int chunk = cy * chunksX + cx;
+                if (materialised[chunk]) continue;
+                if (occupancy[chunk] == null) allocate(chunk);
+                materialised[chunk] = true;
+                materialisedCount++;
+                dropGridItems(cx, cy);
+                int yEnd = Math.min(height, (cy + 1) << CHUNK_SHIFT);
+                int xEnd = Math.min(width, (cx + 1) << CHUNK_SHIFT);
+                for (int y = cy << CHUNK_SHIFT; y < yEnd; y++) {
+                    for (int x = cx << CHUNK_SHIFT; x < xEnd; x++) {
+                        MineMaze.ElementType t = grid.getCell(x, y);
+                        if ((GRID_BITS[t.ordinal()] & ~WALL) != 0) {
+                            add(new Entity(t), new Location(x, y), GRID_ORDER + (long) y * width + x);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /** @return the number of chunks whose static items have been turned into entities */
+    public int getMaterialisedChunkCount() { return materialisedCount; }
+
+    public int getChunkCount() { return materialised.length; }
+
+    public boolean isMaterialised(int chunk) { return materialised[chunk]; }
+
+    /**
+     * Remove every entity and set which chunks count as materialised, and the order the
+     * next entity added gets, before an engine restores a snapshot by adding its entities
+     * back with their orders. Type versions keep counting up,
+     * so versions taken before the restore never match the restored board.
+     */
+    void reset(boolean[] materialisedChunks, long nextOrder) {
+        this.nextOrder = nextOrder;
+        for (List<Entity> list : entities.values()) {
+            for (Entity e : list) e.detach();
+            list.clear();
+        }
+        materialisedCount = 0;
+        for (int chunk = 0; chunk < materialised.length; chunk++) {
+            occupancy[chunk] = null;
+            counts[chunk] = null;
+            materialised[chunk] = materialisedChunks[chunk];
+            if (materialised[chunk]) {
+                allocate(chunk);
+                materialisedCount++;
+            }
+        }
+        Arrays.fill(gridItems, null);
+        for (int t = 0; t < TYPE_COUNT; t++) typeVersion[t]++;
+    }
+
+    /**
+     * @return a counter that changes whenever a visible entity of any type in the mask is
+     *         added, removed, moved, shown or hidden; suitable for invalidating cached paths
+     */
+    public long getVersion(int typeMask) {
+        long version = 0;
+        for (MineMaze.ElementType t : MineMaze.ElementType.values()) {
+            if ((typeMask & bit(t)) != 0) version += typeVersion[t.ordinal()];
+        }
+        return version;
+    }
+
+    /**
+     * Same contract as GameGrid.getOneActorAt: the first visible entity of the given type
+     * at the location, or null. A map item in a chunk not materialised is no entity yet, so
+     * it is not found; the engine keeps the chunks around its machines materialised.
+     */
+    public Entity getOneAt(Location location, MineMaze.ElementType type) {
+        if (!has(location, type)) return null;
+        for (Entity e : entities.get(type)) {
+            if (e.isVisible() && e.getX() == location.x && e.getY() == location.y) return e;
+        }
+        return null;
+    }
+
+    /**
+     * Materialised entities of one type in list order (read-only view); the map's items in
+     * chunks not materialised yet are not in it, see forEachVisible.
+     */
+    public List<Entity> getEntities(MineMaze.ElementType type) {
+        return readOnlyEntities.get(type);
+    }
+
+    /** Receives the positions listed by forEachVisible. */
+    @FunctionalInterface
+    public interface PositionVisitor {
+        void visit(int x, int y);
+    }
+
+    /**
+     * Visit the positions of the visible entities of a type in list order, with the map's
+     * items of the chunks not materialised yet in their places. The result does not depend
+     * on which chunks are materialised.
+     */
+    public void forEachVisible(MineMaze.ElementType type, PositionVisitor visitor) {
+        List<Entity> list = entities.get(type);
+        int i = 0;
+        if ((GRID_BITS[type.ordinal()] & ~WALL) != 0) {
+            for (int chunkRow = 0; chunkRow < chunksY; chunkRow++) {
+                for (int p : gridItems(chunkRow)[type.ordinal()]) {
+                    int x = TickLog.x(p), y = TickLog.y(p);
+                    long order = GRID_ORDER + (long) y * width + x;
+                    for (; i < list.size() && list.get(i).getOrder() < order; i++) visit(list.get(i), visitor);
+                    visitor.visit(x, y);
+                }
+            }
+        }
+        for (; i < list.size(); i++) visit(list.get(i), visitor);
+    }
+
+    private static void visit(Entity e, PositionVisitor visitor) {
+        if (e.isVisible()) visitor.visit(e.getX(), e.getY());
+    }
+
+    long getNextOrder() { return nextOrder; }
+
+    public boolean isInside(Location location) {
+        return location.x >= 0 && location.x < width && location.y >= 0 && location.y < height;
+    }
+
+    public boolean isBorder(Location location) {
+        return (occupancyAt(location) & WALL) != 0;
+    }
+
+    public MapGrid getGrid() { return grid; }
+    public int getNbHorzCells() { return grid.getNbHorzCells(); }
+    public int getNbVertCells() { return grid.getNbVertCells(); }
+}
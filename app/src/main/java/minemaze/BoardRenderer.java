@@ -11,6 +11,7 @@ import java.awt.*;
  * Renders static board tiles based on MapGrid contents.
  */
 public final class BoardRenderer {
+    private static final Color OUTSIDE_COLOR = new Color(230, 230, 230);
     private final Color borderColor;
 
     public BoardRenderer(Color borderColor) {
@@ -19,20 +20,26 @@ public final class BoardRenderer {
 
     /** Draw basic board with outside color and border color. */
     public void drawBoard(GGBackground bg, MapGrid grid) {
-        int w = grid.getNbHorzCells();
-        int h = grid.getNbVertCells();
-        bg.clear(new Color(230, 230, 230));
+        bg.clear(OUTSIDE_COLOR);
         bg.setPaintColor(Color.darkGray);
-        for (int y = 0; y < h; y++) {
-            for (int x = 0; x < w; x++) {
-                Location loc = new Location(x, y);
-                MineMaze.ElementType t = grid.getCell(loc);
-                if (t != MineMaze.ElementType.OUTSIDE) {
-                    bg.fillCell(loc, Color.lightGray);
-                }
-                if (t == MineMaze.ElementType.BORDER) {
-                    bg.fillCell(loc, borderColor);
-                }
+        grid.forEachCell((x, y, t) -> {
+            if (t == MineMaze.ElementType.OUTSIDE) return;
+            Location loc = new Location(x, y);
+            bg.fillCell(loc, Color.lightGray);
+            if (t == MineMaze.ElementType.BORDER) {
+                bg.fillCell(loc, borderColor);
+            }
+        });
+    }
+
+    /** Redraw the board tiles of a rectangle of cells (inclusive), e.g. to erase text drawn over them. */
+    public void drawCells(GGBackground bg, MapGrid grid, int x0, int y0, int x1, int y1) {
+        for (int y = Math.max(0, y0); y <= Math.min(grid.getNbVertCells() - 1, y1); y++) {
+            for (int x = Math.max(0, x0); x <= Math.min(grid.getNbHorzCells() - 1, x1); x++) {
+                MineMaze.ElementType t = grid.getCell(x, y);
+                Color color = t == MineMaze.ElementType.OUTSIDE ? OUTSIDE_COLOR
+                        : t == MineMaze.ElementType.BORDER ? borderColor : Color.lightGray;
+                bg.fillCell(new Location(x, y), color);
             }
         }
     }
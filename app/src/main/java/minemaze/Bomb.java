@@ -1,24 +1,28 @@
 package minemaze;
 
-import ch.aplu.jgamegrid.Actor;
 import ch.aplu.jgamegrid.Location;
-import ch.aplu.jgamegrid.GameGrid;
 
-public class Bomb extends Actor implements Usable {
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public class Bomb extends Entity implements Usable {
     private int fuseTicksRemaining;
     private final int explosionRadius;
     private boolean isActive;
     private boolean isArmed;
-    private final GameGrid grid;
+    private final Board board;
+    private final GameStatistics statistics;
 
-    public Bomb(Location location, int fuseTicks, int explosionRadius, GameGrid grid) {
-        super("sprites/bomb.png");
+    public Bomb(Location location, int fuseTicks, int explosionRadius, Board board, GameStatistics statistics) {
+        super(MineMaze.ElementType.BOMB);
         setLocation(location);
         this.fuseTicksRemaining = fuseTicks;
         this.explosionRadius = explosionRadius;
         this.isActive = true;
         this.isArmed = false;
-        this.grid = grid;
+        this.board = board;
+        this.statistics = statistics;
     }
 
     @Override
@@ -65,28 +69,49 @@ public class Bomb extends Actor implements Usable {
             Location loc = new Location(x, y);
 
             // Remove hard rocks and boulders in radius
-            Actor hardRock = grid.getOneActorAt(loc, minemaze.HardRock.class);
-            Actor boulder = grid.getOneActorAt(loc, minemaze.Rock.class);
-            if (hardRock != null) grid.removeActor(hardRock);
-            if (boulder != null) grid.removeActor(boulder);
+            Entity hardRock = board.getOneAt(loc, MineMaze.ElementType.HARD_ROCK);
+            Entity boulder = board.getOneAt(loc, MineMaze.ElementType.BOULDER);
+            if (hardRock != null) { hardRock.removeSelf(); statistics.recordRockDestroyed(); }
+            if (boulder != null) { boulder.removeSelf(); statistics.recordRockDestroyed(); }
 
             // Reveal resources (ore, booster, fuel) hidden beneath obstacles
-            Actor ore = grid.getOneActorAt(loc, minemaze.Ore.class);
-            Actor booster = grid.getOneActorAt(loc, minemaze.Booster.class);
-            Actor fuel = grid.getOneActorAt(loc, minemaze.Fuel.class);
+            Entity ore = board.getOneAt(loc, MineMaze.ElementType.ORE);
+            Entity booster = board.getOneAt(loc, MineMaze.ElementType.BOOSTER);
+            Entity fuel = board.getOneAt(loc, MineMaze.ElementType.FUEL);
             if (ore != null) ore.show();
             if (booster != null) booster.show();
             if (fuel != null) fuel.show();
         }
 
-        System.out.println("Bomb exploded at " + getLocation() + " with radius " + explosionRadius);
-
-        grid.removeActor(this);
+        removeSelf();
     }
 
     public boolean isActive() {
         return isActive;
     }
 
+    public boolean isArmed() {
+        return isArmed;
+    }
+
+    public int getFuseTicksRemaining() {
+        return fuseTicksRemaining;
+    }
+
+    /** Write the fuse state for an engine snapshot; the location is written with the board. */
+    void writeState(DataOutput out) throws IOException {
+        out.writeInt(fuseTicksRemaining);
+        out.writeInt(explosionRadius);
+        out.writeBoolean(isArmed);
+        out.writeBoolean(isActive);
+    }
+
+    static Bomb readState(DataInput in, Location location, Board board, GameStatistics statistics) throws IOException {
+        Bomb bomb = new Bomb(location, in.readInt(), in.readInt(), board, statistics);
+        bomb.isArmed = in.readBoolean();
+        bomb.isActive = in.readBoolean();
+        return bomb;
+    }
+
 
 }
\ No newline at end of file
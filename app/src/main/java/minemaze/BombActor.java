@@ -0,0 +1,9 @@
+package minemaze;
+
+import ch.aplu.jgamegrid.Actor;
+
+public class BombActor extends Actor {
+    public BombActor() {
+        super("sprites/bomb.png");
+    }
+}
@@ -1,8 +1,10 @@
 package minemaze;
 
-import ch.aplu.jgamegrid.Actor;
 import ch.aplu.jgamegrid.Location;
-import ch.aplu.jgamegrid.GameGrid;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -13,28 +15,40 @@ import java.util.List;
 public class Bomber extends Machine {
     private int bombsAvailable;
     private final List<Bomb> bombs;
-    private List<String> controls;
-    private final GameGrid grid;
+    private MovementScript controls;
+    private final Board board;
+    private final PathPlanner planner;
+    private final PathPlanner.StepRule stepRule = this::canStep;
+    private final PathCache pathCache = new PathCache(64);
+    static final int FUSE_TICKS = 6;
+    static final int EXPLOSION_RADIUS = 1;
+    private final GameStatistics statistics;
+
+    // Cells the bomber cannot enter; other bombers are left out so the bomber's own moves do not invalidate the cache
+    private static final int OBSTACLES = Board.bit(MineMaze.ElementType.BORDER) | Board.bit(MineMaze.ElementType.ORE)
+            | Board.bit(MineMaze.ElementType.BOULDER) | Board.bit(MineMaze.ElementType.HARD_ROCK);
     private boolean returningToStart = false;
     private boolean movingToBomb = false;
-    private BombMarker pendingBombMarker = null;
+    private Entity pendingBombMarker = null;
     private Location bombTarget;
 
-    public Bomber(Location startLocation, int bombsAvailable, GameGrid grid) {
-        super(true, "sprites/bomber.png");
+    public Bomber(Location startLocation, int bombsAvailable, Board board, PathPlanner planner,
+                  GameStatistics statistics) {
+        super(MineMaze.ElementType.BOMBER);
         this.initialLocation = startLocation;
         this.bombsAvailable = bombsAvailable;
         this.bombs = new ArrayList<>();
-        this.controls = new ArrayList<>();
         setLocation(startLocation);
-        this.grid = grid;
+        this.board = board;
+        this.planner = planner;
+        this.statistics = statistics;
     }
 
-    public void setupBomberControls(List<String> bomberControls) {
+    public void setupBomberControls(MovementScript bomberControls) {
         this.controls = bomberControls;
     }
 
-    public void setPendingBombMarker(BombMarker marker) {
+    public void setPendingBombMarker(Entity marker) {
         this.pendingBombMarker = marker;
     }
 
@@ -49,7 +63,7 @@ public class Bomber extends Machine {
         bombTarget = target;
         outboundPath = new ArrayList<>(); // Reset outbound path
         // Use Machine's movement logic but save the path
-        startMoveToTarget(target, grid);
+        startMoveToTarget(target, board);
         outboundPath.addAll(movePath); // Save the path before moving
         movingToBomb = true;
         returningToStart = true; // Manual mode requires return to start
@@ -84,6 +98,15 @@ public class Bomber extends Machine {
         }
     }
 
+    /** Count a step that changes the bomber's cell; the bomber burns no fuel. */
+    @Override
+    public boolean stepMove() {
+        Location before = getLocation();
+        boolean done = super.stepMove();
+        if (!getLocation().equals(before)) statistics.recordBomberMove(0);
+        return done;
+    }
+
     private List<Location> reversePath(List<Location> path) {
         List<Location> reversed = new ArrayList<>(path);
         java.util.Collections.reverse(reversed);
@@ -104,7 +127,7 @@ public class Bomber extends Machine {
     private void placeBombAtCurrentLocation() {
         // Remove bomb marker, if any
         if (pendingBombMarker != null) {
-            grid.removeActor(pendingBombMarker);
+            pendingBombMarker.removeSelf();
             pendingBombMarker = null;
         }
 
@@ -112,14 +135,12 @@ public class Bomber extends Machine {
             return;
         }
 
-        Bomb bomb = new Bomb(getLocation(), 6, 1, grid);
+        Bomb bomb = new Bomb(getLocation(), FUSE_TICKS, EXPLOSION_RADIUS, board, statistics);
         bombs.add(bomb);
         bombsAvailable--;
-        grid.addActor(bomb, getLocation());
-        System.out.println("[Bomber Debug] Placing bomb at " + getLocation() + " (Bombs left after placing: " + bombsAvailable + ")");
-        bomb.show();
+        statistics.recordBombPlaced();
+        board.add(bomb, getLocation());
         bomb.use(this);
-        grid.refresh();
     }
 
     /**
@@ -127,125 +148,43 @@ public class Bomber extends Machine {
      * Execute exactly one command per tick
      * Returns true if command was processed, and we can move to next command
      */
-    public boolean autoMoveNext(int autoMovementIndex, String bombCommand, Runnable refresh) {
+    public boolean autoMoveNext(int autoMovementIndex) {
         if (controls == null || autoMovementIndex >= controls.size()) {
             return false;
         }
 
-        String currentMove = controls.get(autoMovementIndex);
-
-        // --- DEBUG LOG ---
-        System.out.println("[Bomber Debug] Command #" + autoMovementIndex + ": '" + currentMove +
-                "', Bomber at: " + getLocation() + ", Bombs left: " + bombsAvailable);
-
         // Bomb command: place bomb at current location (no movement this tick)
-        if (currentMove.equals(bombCommand)) {
-            if (bombsAvailable > 0) {
-                placeBombAtCurrentLocation();
-                refresh.run();
-            } else {
-                System.out.println("[Bomber Debug] No bombs available for bomb command - no action this tick");
-            }
+        if (controls.isBomb(autoMovementIndex)) {
+            // Without bombs left the command is a no-op for this tick
+            if (bombsAvailable > 0) placeBombAtCurrentLocation();
             return true; // Command processed, move to next command
         }
 
-        // Movement command (format: x-y): move one step toward target
-        String[] parts = currentMove.split("-");
-        if (parts.length == 2) {
-            try {
-                int targetX = Integer.parseInt(parts[0]);
-                int targetY = Integer.parseInt(parts[1]);
-                Location targetLocation = new Location(targetX, targetY);
-
-                if (!getLocation().equals(targetLocation)) {
-                    // Move one step toward the target
-                    Location nextStep = getNextStepToward(targetLocation);
-                    if (nextStep != null && canMove(nextStep, grid)) {
-                        setLocation(nextStep);
-                        System.out.println("[Bomber Debug] Moved one step to: " + nextStep + " (target: " + targetLocation + ")");
-                        refresh.run();
-                    } else {
-                        System.out.println("[Bomber Debug] Cannot move toward: " + targetLocation + " (blocked or invalid)");
-                    }
-                } else {
-                    System.out.println("[Bomber Debug] Already at target: " + targetLocation);
-                }
-                return true; // Command processed, move to next command
-            } catch (NumberFormatException e) {
-                System.err.println("Invalid bomber movement command: " + currentMove);
-                return true; // Skip invalid commands
+        // Movement command (x-y): move one step toward target
+        Location targetLocation = new Location(controls.getX(autoMovementIndex), controls.getY(autoMovementIndex));
+        if (!getLocation().equals(targetLocation)) {
+            // Move one step toward the target
+            Location nextStep = getNextStepToward(targetLocation);
+            if (nextStep != null && canMove(nextStep, board)) {
+                setLocation(nextStep);
+                statistics.recordBomberMove(0);
             }
         }
-
-        return true; // Skip unknown commands
+        return true; // Command processed, move to next command
     }
 
     /**
-     * Start movement toward a target location
-     * Calculates a path going horizontally then vertically
+     * Start movement toward a target location along a shortest path.
+     * If the target is blocked (e.g. a rock to be bombed), the path stops at the closest reachable cell.
      */
-    public void startMoveToTarget(Location target, GameGrid grid) {
+    public void startMoveToTarget(Location target, Board board) {
         movePath.clear();
         movePathIndex = 0;
         Location current = getLocation();
         movePath.add(current); // Add initial position to path
 
-        boolean moveHorizontally = true; // Start with horizontal move
-
-        while (!current.equals(target)) {
-            boolean moved = false;
-
-            // Try both axes (horizontal and vertical)
-            for (int attempt = 0; attempt < 2; attempt++) {
-                Location nextStep = null;
-
-                if (moveHorizontally && current.x != target.x) {
-                    int dx = current.x < target.x ? 1 : -1;
-                    nextStep = new Location(current.x + dx, current.y);
-                } else if (!moveHorizontally && current.y != target.y) {
-                    int dy = current.y < target.y ? 1 : -1;
-                    nextStep = new Location(current.x, current.y + dy);
-                }
-
-                if (nextStep != null) {
-                    Actor hardrock = grid.getOneActorAt(nextStep, minemaze.HardRock.class);
-                    Actor rock = grid.getOneActorAt(nextStep, minemaze.Rock.class);
-                    Actor ore = grid.getOneActorAt(nextStep, minemaze.Ore.class);
-                    Actor wall = grid.getOneActorAt(nextStep, minemaze.Wall.class);
-
-                    if (hardrock != null || rock != null) {
-                        // Hit hardrock or rock - stop here and allow bomb drop only if we've moved
-                        isMoving = movePath.size() > 1;
-                        return;
-                    } else if (wall != null) {
-                        // Hit wall - try the other axis instead of stopping
-                        moveHorizontally = !moveHorizontally;
-                        continue;
-                    } else if (ore != null) {
-                        // Hit ore - try the other axis (bomber can't push ore)
-                        moveHorizontally = !moveHorizontally;
-                        continue;
-                    } else if (canMove(nextStep, grid)) {
-                        // Path is clear - move to this location
-                        movePath.add(nextStep);
-                        current = nextStep;
-                        moved = true;
-                        break;
-                    } else {
-                        // Other obstacle - try the other axis
-                        moveHorizontally = !moveHorizontally;
-                        continue;
-                    }
-                }
-
-                // Switch to the other axis for next attempt
-                moveHorizontally = !moveHorizontally;
-            }
-
-            if (!moved) {
-                // No movement possible in either direction - stop
-                break;
-            }
+        for (int cell : plannedPath(current, target)) {
+            movePath.add(new Location(planner.x(cell), planner.y(cell)));
         }
 
         // Set moving state based on whether we have a valid path
@@ -256,46 +195,106 @@ public class Bomber extends Machine {
      * Calculate the next step toward a target location (one step per tick)
      */
     private Location getNextStepToward(Location target) {
-        Location current = getLocation();
-        int currentX = current.getX();
-        int currentY = current.getY();
-        int targetX = target.getX();
-        int targetY = target.getY();
-
-        // Calculate direction (one step at a time)
-        int deltaX = Integer.signum(targetX - currentX);
-        int deltaY = Integer.signum(targetY - currentY);
-
-        // Move one step toward target (prioritize X movement, then Y)
-        if (deltaX != 0) {
-            return new Location(currentX + deltaX, currentY);
-        } else if (deltaY != 0) {
-            return new Location(currentX, currentY + deltaY);
-        }
-
-        return current; // Already at target
+        int[] path = plannedPath(getLocation(), target);
+        if (path.length == 0) return null; // Already at target, or no step gets closer
+        return new Location(planner.x(path[0]), planner.y(path[0]));
     }
 
+    /**
+     * Cells from current (excluded) towards target, from the cache when the obstacles
+     * the bomber cares about have not changed since the path was planned.
+     */
+    private int[] plannedPath(Location current, Location target) {
+        if (!board.isInside(target)) return new int[0];
+        int start = planner.index(current.x, current.y);
+        int goal = planner.index(target.x, target.y);
+        long version = board.getVersion(OBSTACLES);
+        int[] path = pathCache.get(start, goal, version);
+        if (path == null) {
+            planner.plan(start, goal, Integer.MAX_VALUE, stepRule);
+            path = pathCache.put(start, goal, planner);
+        }
+        return path;
+    }
 
+    private boolean canStep(int toX, int toY, int dx, int dy, int steps) {
+        return (board.occupancyAt(toX, toY) & OBSTACLES) == 0;
+    }
 
     /**
      * Bomber cannot move through ore (unlike Pusher which can push ore)
      */
     @Override
-    protected boolean canMove(Location location, GameGrid grid) {
+    protected boolean canMove(Location location, Board board) {
         // Check for ore - bomber cannot push ore
-        Actor ore = grid.getOneActorAt(location, minemaze.Ore.class);
-        if (ore != null) {
+        if (board.has(location, MineMaze.ElementType.ORE)) {
             return false;
         }
 
         // Check for other bombers too
-        Actor otherBomber = grid.getOneActorAt(location, Bomber.class);
+        Entity otherBomber = board.getOneAt(location, MineMaze.ElementType.BOMBER);
         if (otherBomber != null && otherBomber != this) {
             return false;
         }
 
-        return super.canMove(location, grid);
+        return super.canMove(location, board);
+    }
+
+    /**
+     * Write the bomber's state for an engine snapshot. The pending marker and the bombs
+     * are written as their indices in the board's lists, which are restored first.
+     */
+    @Override
+    void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeInt(bombsAvailable);
+        out.writeBoolean(returningToStart);
+        out.writeBoolean(movingToBomb);
+        out.writeBoolean(bombTarget != null);
+        if (bombTarget != null) out.writeInt(TickLog.pack(bombTarget.x, bombTarget.y));
+        writeLocations(out, outboundPath);
+        out.writeInt(pendingBombMarker == null ? -1
+                : board.getEntities(MineMaze.ElementType.BOMB_MARKER).indexOf(pendingBombMarker));
+        List<Entity> onBoard = board.getEntities(MineMaze.ElementType.BOMB);
+        out.writeInt(bombs.size());
+        for (Bomb bomb : bombs) out.writeInt(onBoard.indexOf(bomb));
+    }
+
+    @Override
+    Runnable readState(DataInput in, int[] counts) throws IOException {
+        Runnable machine = super.readState(in, counts);
+        int bombsAvailable = in.readInt();
+        boolean returningToStart = in.readBoolean();
+        boolean movingToBomb = in.readBoolean();
+        Location bombTarget = in.readBoolean() ? readLocation(in) : null;
+        List<Location> outboundPath = readLocations(in);
+        int marker = in.readInt();
+        if (marker < -1 || marker >= counts[MineMaze.ElementType.BOMB_MARKER.ordinal()]) {
+            throw new IllegalArgumentException("bad bomb marker index " + marker);
+        }
+        int bombCount = in.readInt();
+        if (bombCount < 0) throw new IllegalArgumentException("bad bomb count " + bombCount);
+        int[] bombIndices = new int[bombCount];
+        for (int i = 0; i < bombIndices.length; i++) {
+            bombIndices[i] = in.readInt();
+            if (bombIndices[i] < -1 || bombIndices[i] >= counts[MineMaze.ElementType.BOMB.ordinal()]) {
+                throw new IllegalArgumentException("bad bomb index " + bombIndices[i]);
+            }
+        }
+        return () -> {
+            machine.run();
+            this.bombsAvailable = bombsAvailable;
+            this.returningToStart = returningToStart;
+            this.movingToBomb = movingToBomb;
+            this.bombTarget = bombTarget;
+            this.outboundPath = outboundPath;
+            pendingBombMarker = marker < 0 ? null : board.getEntities(MineMaze.ElementType.BOMB_MARKER).get(marker);
+            List<Entity> onBoard = board.getEntities(MineMaze.ElementType.BOMB);
+            bombs.clear();
+            for (int index : bombIndices) {
+                if (index >= 0) bombs.add((Bomb) onBoard.get(index)); // a bomb off the board has gone off
+            }
+        };
     }
 
     public int getBombsAvailable() {
@@ -0,0 +1,9 @@
+package minemaze;
+
+import ch.aplu.jgamegrid.Actor;
+
+public class BomberActor extends Actor {
+    public BomberActor() {
+        super(true, "sprites/bomber.png");
+    }
+}
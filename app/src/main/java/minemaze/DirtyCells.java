@@ -0,0 +1,35 @@
+package minemaze;
+
+import ch.aplu.jgamegrid.Location;
+
+/**
+ * DirtyCells
+ * -----------
+ * Records whether the picture of any grid cell changed during a tick, so the renderer
+ * skips the refresh when nothing changed. JGameGrid repaints the whole canvas, so which
+ * cells changed is not kept, only that one did.
+ */
+public final class DirtyCells {
+    private final int width;
+    private final int height;
+    private boolean dirty;
+
+    public DirtyCells(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public void mark(Location location) {
+        if (location != null) mark(location.x, location.y);
+    }
+
+    public void mark(int x, int y) {
+        if (x >= 0 && x < width && y >= 0 && y < height) dirty = true;
+    }
+
+    public boolean isEmpty() { return !dirty; }
+
+    public void clear() {
+        dirty = false;
+    }
+}
@@ -1,17 +1,18 @@
 package minemaze;
+import java.io.IOException;
 import java.util.Properties;
 
 public class Driver {
     public static final String DEFAULT_PROPERTIES_PATH = "properties/game1.properties";
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         String propertiesPath = DEFAULT_PROPERTIES_PATH;
         if (args.length > 0) {
             propertiesPath = args[0];
         }
         final Properties properties = PropertiesLoader.loadPropertiesFile(propertiesPath);
 
-        MapGrid grid = new MapGrid();
+        MapGrid grid = MapGrid.fromProperties(properties, null);
 
         MineMaze game = new MineMaze(properties, grid);
         String logResult = game.runApp(true);
@@ -0,0 +1,67 @@
+package minemaze;
+
+import ch.aplu.jgamegrid.Location;
+
+/**
+ * Entity
+ * -------
+ * Engine-side game piece: an element type with a board position and visibility.
+ * Entities carry no rendering state; MineMaze mirrors them as JGameGrid actors.
+ */
+public class Entity {
+    private final MineMaze.ElementType type;
+    private Location location;
+    private boolean visible = true;
+    private Board board;
+    private long order; // position in the board's list of its type, see Board.add
+
+    public Entity(MineMaze.ElementType type) {
+        this.type = type;
+    }
+
+    public MineMaze.ElementType getType() { return type; }
+
+    public Location getLocation() { return location; }
+
+    public int getX() { return location.x; }
+    public int getY() { return location.y; }
+
+    /** Move this entity, keeping the board's occupancy index up to date; the location is copied. */
+    public void setLocation(Location location) {
+        Location to = new Location(location.x, location.y);
+        if (board != null && visible) {
+            board.vacate(this.location, type);
+            board.occupy(to, type);
+        }
+        this.location = to;
+    }
+
+    public boolean isVisible() { return visible; }
+
+    public void show() {
+        if (!visible && board != null) board.occupy(location, type);
+        visible = true;
+    }
+
+    public void hide() {
+        if (visible && board != null) board.vacate(location, type);
+        visible = false;
+    }
+
+    /** Remove this entity from its board. */
+    public void removeSelf() {
+        if (board != null) board.remove(this);
+    }
+
+    /** @return true while this entity is placed on a board */
+    public boolean isOnBoard() { return board != null; }
+
+    long getOrder() { return order; }
+
+    void attach(Board board, long order) {
+        this.board = board;
+        this.order = order;
+    }
+
+    void detach() { this.board = null; }
+}
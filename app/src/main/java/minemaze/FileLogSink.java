@@ -0,0 +1,59 @@
+package minemaze;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * FileLogSink
+ * ------------
+ * Streams log text to a file through a FileChannel. Characters are copied into a
+ * direct buffer as single bytes (the log is plain ASCII) and written when it fills,
+ * so memory use does not grow with the length of the game.
+ */
+public final class FileLogSink implements LogSink {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    public FileLogSink(Path path) {
+        try {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open log file " + path, e);
+        }
+    }
+
+    @Override
+    public void append(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (!buffer.hasRemaining()) drain();
+            buffer.put((byte) text.charAt(i));
+        }
+    }
+
+    @Override
+    public void close() {
+        drain();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void drain() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+}
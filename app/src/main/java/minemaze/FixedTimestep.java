@@ -0,0 +1,93 @@
+package minemaze;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * FixedTimestep
+ * --------------
+ * Deadline-based tick scheduler for the real-time loop. Tick n is due at start + n * period
+ * on System.nanoTime, so the work done in a tick does not push the following ticks back
+ * and the game keeps to its configured length. When the loop falls behind it runs the
+ * missed ticks back to back, at most maxCatchUpTicks at a time; beyond that the schedule
+ * is moved forward and the missed ticks are counted as skipped.
+ * Only wall-clock pacing lives here: the engine still advances by exactly one step per
+ * tick, so the game itself is the same however late the ticks run.
+ */
+public final class FixedTimestep {
+    private final long periodNanos;
+    private final int maxCatchUpTicks;
+    private long nextDeadline;
+    private boolean started;
+
+    // Overrun metrics
+    private long ticks;
+    private long wakeUps;
+    private long overruns;         // wake-ups that found more than one tick due
+    private long catchUpTicks;     // ticks run back to back to catch up
+    private long skippedTicks;     // ticks dropped from the schedule beyond the catch-up bound
+    private long totalLatenessNanos;
+    private long maxLatenessNanos;
+
+    public FixedTimestep(long periodMs, int maxCatchUpTicks) {
+        if (periodMs <= 0) throw new IllegalArgumentException("period must be positive: " + periodMs);
+        if (maxCatchUpTicks < 1) throw new IllegalArgumentException("maxCatchUpTicks must be at least 1: " + maxCatchUpTicks);
+        this.periodNanos = TimeUnit.MILLISECONDS.toNanos(periodMs);
+        this.maxCatchUpTicks = maxCatchUpTicks;
+    }
+
+    /** Start the schedule: the first tick is due one period from now. */
+    public void start() {
+        nextDeadline = System.nanoTime() + periodNanos;
+        started = true;
+    }
+
+    /**
+     * Wait until the next tick is due.
+     * @return the number of ticks to run now: 1 on schedule, more when catching up
+     */
+    public int awaitTicks() throws InterruptedException {
+        if (!started) start();
+        long now = System.nanoTime();
+        while (now < nextDeadline) {
+            LockSupport.parkNanos(this, nextDeadline - now);
+            if (Thread.interrupted()) throw new InterruptedException();
+            now = System.nanoTime();
+        }
+
+        long lateness = now - nextDeadline;
+        long due = 1 + lateness / periodNanos;
+        wakeUps++;
+        totalLatenessNanos += lateness;
+        maxLatenessNanos = Math.max(maxLatenessNanos, lateness);
+        if (due > 1) overruns++;
+
+        if (due > maxCatchUpTicks) {
+            skippedTicks += due - maxCatchUpTicks;
+            due = maxCatchUpTicks;
+            nextDeadline = now + periodNanos;
+        } else {
+            nextDeadline += due * periodNanos;
+        }
+        ticks += due;
+        catchUpTicks += due - 1;
+        return (int) due;
+    }
+
+    public long getTickCount() { return ticks; }
+    public long getOverrunCount() { return overruns; }
+    public long getCatchUpTickCount() { return catchUpTicks; }
+    public long getSkippedTickCount() { return skippedTicks; }
+    public long getMaxLatenessNanos() { return maxLatenessNanos; }
+
+    /** @return the mean delay between a wake-up's deadline and the wake-up itself */
+    public double getMeanLatenessNanos() {
+        return wakeUps == 0 ? 0 : (double) totalLatenessNanos / wakeUps;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ticks=%d overruns=%d catch-up=%d skipped=%d lateness mean=%.2fms max=%.2fms",
+                ticks, overruns, catchUpTicks, skippedTicks, getMeanLatenessNanos() / 1e6, maxLatenessNanos / 1e6);
+    }
+}
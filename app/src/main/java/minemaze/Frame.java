@@ -0,0 +1,87 @@
+package minemaze;
+
+import ch.aplu.jgamegrid.Location;
+
+/**
+ * Frame
+ * ------
+ * Immutable picture of the game after one tick, handed from the simulation thread to
+ * the render thread. Entities are kept only as identities, to match them with their
+ * actors; everything the renderer draws is copied into the frame.
+ */
+public final class Frame {
+    private final int tick;
+    private final int oresCollected;
+    private final int oresWinning;
+    private final double remainingSeconds;
+    private final int fuel;
+    private final int boosterCharges;
+    private final int bombsAvailable;
+    private final int[] fuseTicks; // armed bombs still ticking
+
+    private final Entity[] entities;
+    private final MineMaze.ElementType[] types;
+    private final int[] positions; // TickLog.pack(x, y)
+    private final boolean[] visible;
+    private final Location.CompassDirection[] directions; // null for entities that are not machines
+
+    private Frame(MineMazeEngine engine) {
+        Pusher pusher = engine.getPusher();
+        Bomber bomber = engine.getBomber();
+        tick = engine.getTickCount();
+        oresCollected = engine.getOresCollected();
+        oresWinning = engine.getOresWinning();
+        remainingSeconds = engine.getRemainingSeconds();
+        fuel = pusher != null ? pusher.getFuel() : 0;
+        boosterCharges = pusher != null ? pusher.getBoosterCharges() : 0;
+        bombsAvailable = bomber != null ? bomber.getBombsAvailable() : 0;
+        fuseTicks = bomber == null ? new int[0] : bomber.getBombs().stream()
+                .filter(b -> b.isActive() && b.isArmed())
+                .mapToInt(Bomb::getFuseTicksRemaining).toArray();
+
+        Board board = engine.getBoard();
+        int count = 0;
+        for (MineMaze.ElementType type : MineMaze.ElementType.values()) count += board.getEntities(type).size();
+        entities = new Entity[count];
+        types = new MineMaze.ElementType[count];
+        positions = new int[count];
+        visible = new boolean[count];
+        directions = new Location.CompassDirection[count];
+        int i = 0;
+        for (MineMaze.ElementType type : MineMaze.ElementType.values()) {
+            for (Entity e : board.getEntities(type)) {
+                entities[i] = e;
+                types[i] = type;
+                positions[i] = TickLog.pack(e.getX(), e.getY());
+                visible[i] = e.isVisible();
+                if (e instanceof Machine m) directions[i] = m.getDirection();
+                i++;
+            }
+        }
+    }
+
+    /** Copy the state of the engine; call on the simulation thread, between steps. */
+    public static Frame capture(MineMazeEngine engine) {
+        return new Frame(engine);
+    }
+
+    public int getTick() { return tick; }
+    public int getOresCollected() { return oresCollected; }
+    public int getOresWinning() { return oresWinning; }
+    public double getRemainingSeconds() { return remainingSeconds; }
+    public int getFuel() { return fuel; }
+    public int getBoosterCharges() { return boosterCharges; }
+    public int getBombsAvailable() { return bombsAvailable; }
+    public int getFuseCount() { return fuseTicks.length; }
+    public int getFuseTicks(int i) { return fuseTicks[i]; }
+
+    public int size() { return entities.length; }
+
+    /** @return the entity, to be used as an identity key only: its state belongs to the simulation thread */
+    public Entity getEntity(int i) { return entities[i]; }
+    public MineMaze.ElementType getType(int i) { return types[i]; }
+    public int getX(int i) { return TickLog.x(positions[i]); }
+    public int getY(int i) { return TickLog.y(positions[i]); }
+    public boolean isVisible(int i) { return visible[i]; }
+    public Location.CompassDirection getDirection(int i) { return directions[i]; }
+}
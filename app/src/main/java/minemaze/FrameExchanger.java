@@ -0,0 +1,63 @@
+package minemaze;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * FrameExchanger
+ * ---------------
+ * Lock-free single-slot hand-over from one producer to one consumer thread.
+ * The producer never waits: publishing replaces a frame the consumer has not taken yet,
+ * so a slow consumer drops frames instead of holding back the producer.
+ */
+public final class FrameExchanger<T> {
+    private final AtomicReference<T> slot = new AtomicReference<>();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile Thread consumer;
+    private volatile boolean closed;
+
+    /** Offer the latest frame, replacing (dropping) any frame not taken yet. */
+    public void publish(T frame) {
+        published.incrementAndGet();
+        if (slot.getAndSet(frame) != null) dropped.incrementAndGet();
+        Thread waiting = consumer;
+        if (waiting != null) LockSupport.unpark(waiting);
+    }
+
+    /** @return the latest frame, or null when none was published since the last take */
+    public T poll() {
+        return slot.getAndSet(null);
+    }
+
+    /**
+     * Wait for the next frame.
+     * @return the latest frame, or null once the exchanger is closed and drained
+     */
+    public T take() throws InterruptedException {
+        consumer = Thread.currentThread();
+        try {
+            T frame;
+            while ((frame = slot.getAndSet(null)) == null) {
+                if (closed) return slot.getAndSet(null);
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+                if (Thread.interrupted()) throw new InterruptedException();
+            }
+            return frame;
+        } finally {
+            consumer = null;
+        }
+    }
+
+    /** No more frames will be published; wakes the consumer once the last frame is taken. */
+    public void close() {
+        closed = true;
+        Thread waiting = consumer;
+        if (waiting != null) LockSupport.unpark(waiting);
+    }
+
+    public long getPublishedCount() { return published.get(); }
+    public long getDroppedCount() { return dropped.get(); }
+}
@@ -9,6 +9,9 @@ import java.util.*;
  * Centralizes string parsing and provides typed accessors.
  */
 public final class GameConfig {
+    /** Ticks kept in memory when the log is streamed to a file and log.capacity is not set. */
+    public static final int STREAMED_LOG_CAPACITY = 1;
+
     public final boolean autoMode;
     public final int simulationPeriodMs;
     public final double durationSeconds;
@@ -17,9 +20,15 @@ public final class GameConfig {
     public final String oreLocations;
     public final String fuelLocations;
     public final String boosterLocations;
-    public final List<String> pusherMoves;
-    public final List<String> bomberMoves;
+    public final MovementScript pusherMoves;
+    public final MovementScript bomberMoves;
     public final int initialFuel;
+    public final boolean fastForward;
+    public final int logCapacity;
+    public final String logFile;
+    public final boolean profileReport;
+    public final String statisticsFile;
+    public final long statisticsIntervalMs;
 
     public GameConfig(Properties props) {
         this.autoMode = "auto".equals(props.getProperty("movement.mode"));
@@ -31,11 +40,19 @@ public final class GameConfig {
         this.fuelLocations = props.getProperty("fuel.locations", "");
         this.boosterLocations = props.getProperty("booster.locations", "");
         this.initialFuel = Integer.parseInt(props.getProperty("fuel.initial", "100"));
+        this.fastForward = Boolean.parseBoolean(props.getProperty("simulation.fastForward", "false"));
+        this.logFile = props.getProperty("log.file");
+        // A streamed log is on disk already: unless asked otherwise, memory keeps only the last tick
+        this.logCapacity = Integer.parseInt(props.getProperty("log.capacity",
+                logFile != null ? String.valueOf(STREAMED_LOG_CAPACITY) : "0"));
+        this.profileReport = Boolean.parseBoolean(props.getProperty("profile.report", "false"));
+        // An empty statistics.file turns the export off; an interval of 0 writes only at the end
+        String statsFile = props.getProperty("statistics.file", "statistics.txt").trim();
+        this.statisticsFile = statsFile.isEmpty() ? null : statsFile;
+        this.statisticsIntervalMs = Long.parseLong(props.getProperty("statistics.interval", "10000"));
 
-        String pusherMovementsStr = props.getProperty("pusher.movements", "");
-        this.pusherMoves = pusherMovementsStr.isEmpty() ? new ArrayList<>() : Arrays.asList(pusherMovementsStr.split(";"));
-
-        String bomberMovementsStr = props.getProperty("bomber.movements", "");
-        this.bomberMoves = bomberMovementsStr.isEmpty() ? new ArrayList<>() : Arrays.asList(bomberMovementsStr.split(";"));
+        // Scripts are compiled (and validated) here, once, rather than parsed every tick
+        this.pusherMoves = MovementScript.compile("pusher.movements", props.getProperty("pusher.movements", ""), false);
+        this.bomberMoves = MovementScript.compile("bomber.movements", props.getProperty("bomber.movements", ""), true);
     }
 }
\ No newline at end of file
@@ -0,0 +1,500 @@
+package minemaze;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * GameState
+ * ----------
+ * Persistent picture of a game for search and analysis: the items on the map (ore,
+ * rocks, hard rocks, fuel, boosters), the armed bombs, and the state of the pusher and
+ * the bomber. A state never changes; step(command) returns a new one that shares
+ * everything the tick left alone with this one, so forking costs only what changed.
+ * Items are kept as a bitmask per cell in CHUNK_SIZE square chunks: a step copies the
+ * chunks it writes to (and the array of chunk references), never the whole map.
+ * The walls and targets come from the MapGrid, which every state of a game shares.
+ * step() plays one tick exactly like MineMazeEngine in auto mode when each machine is
+ * given one neighbouring cell (or its own cell) per tick; the machines' planned paths
+ * are not part of the state.
+ */
+public final class GameState {
+    /** One step of a machine to a neighbouring cell, or staying put. */
+    public enum Move {
+        NONE(0, 0), NORTH(0, -1), EAST(1, 0), SOUTH(0, 1), WEST(-1, 0);
+
+        private final int dx;
+        private final int dy;
+
+        Move(int dx, int dy) {
+            this.dx = dx;
+            this.dy = dy;
+        }
+
+        public int getDx() { return dx; }
+        public int getDy() { return dy; }
+    }
+
+    /** What the machines do in one tick; a bomber that drops a bomb does not move. */
+    public record Command(Move pusher, Move bomber, boolean bomb) {
+        public static final Command WAIT = new Command(Move.NONE, Move.NONE, false);
+
+        public Command {
+            if (bomb && bomber != Move.NONE) throw new IllegalArgumentException("the bomber cannot move and drop a bomb");
+        }
+
+        public static Command pusher(Move move) { return new Command(move, Move.NONE, false); }
+        public static Command bomber(Move move) { return new Command(Move.NONE, move, false); }
+        public static Command dropBomb() { return new Command(Move.NONE, Move.NONE, true); }
+    }
+
+    // Item bits of a cell
+    private static final int ORE = 1;
+    private static final int BOULDER = 2;
+    private static final int HARD_ROCK = 4;
+    private static final int FUEL = 8;
+    private static final int BOOSTER = 16;
+    private static final MineMaze.ElementType[] ITEM_TYPES = {
+            MineMaze.ElementType.ORE, MineMaze.ElementType.BOULDER, MineMaze.ElementType.HARD_ROCK,
+            MineMaze.ElementType.FUEL, MineMaze.ElementType.BOOSTER};
+
+    // Occupancy bits beyond the items, as in Board
+    private static final int WALL = 32;
+    private static final int PUSHER = 64;
+    private static final int BOMBER = 128;
+    private static final int PUSHER_BLOCKERS = WALL | HARD_ROCK | BOULDER | BOMBER;
+    private static final int ORE_BLOCKERS = PUSHER_BLOCKERS | PUSHER;
+    private static final int BOMBER_OBSTACLES = WALL | ORE | BOULDER | HARD_ROCK;
+
+    private static final int CHUNK_SHIFT = 4;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /** What every state of one game shares. */
+    private static final class Layout {
+        final MapGrid grid;
+        final int width;
+        final int height;
+        final int chunksX;
+        final double periodSeconds;
+        final int oresWinning;
+        final boolean pruneDeadCells;
+
+        Layout(MapGrid grid, GameConfig cfg) {
+            this.grid = grid;
+            this.width = grid.getNbHorzCells();
+            this.height = grid.getNbVertCells();
+            this.chunksX = (width + CHUNK_MASK) >> CHUNK_SHIFT;
+            this.periodSeconds = cfg.simulationPeriodMs / 1000.0;
+            this.oresWinning = cfg.oresWinning;
+            this.pruneDeadCells = false;
+        }
+
+        Layout(Layout from, boolean pruneDeadCells) {
+            this.grid = from.grid;
+            this.width = from.width;
+            this.height = from.height;
+            this.chunksX = from.chunksX;
+            this.periodSeconds = from.periodSeconds;
+            this.oresWinning = from.oresWinning;
+            this.pruneDeadCells = pruneDeadCells;
+        }
+    }
+
+    private final Layout layout;
+    private byte[][] chunks; // item bits per cell; a null chunk holds no items; chunks are shared between states
+    private long itemHash;   // XOR of cellHash over all cells, kept up to date cell by cell
+    private int[] ores;      // cells of the ores on the board, in no particular order; shared between states
+
+    private int pusher;      // cell index
+    private int bomber;      // cell index, or -1 without a bomber
+    private int fuel;
+    private int boosterCharges;
+    private boolean boosterReady;
+    private boolean boosterActivated;
+    private int bombsAvailable;
+    private int[] bombs;     // (cell, fuse ticks) of each armed bomb, in placing order; shared between states
+    private int oresCollected;
+    private int tick;
+    private double remainingSeconds;
+
+    // Chunks this state copied while being stepped; null once the state is published
+    private int[] ownedChunks;
+    private int ownedCount;
+
+    private GameState(Layout layout) {
+        this.layout = layout;
+    }
+
+    private GameState(GameState from) {
+        this(from, from.layout);
+    }
+
+    private GameState(GameState from, Layout layout) {
+        this.layout = layout;
+        chunks = from.chunks;
+        itemHash = from.itemHash;
+        ores = from.ores;
+        pusher = from.pusher;
+        bomber = from.bomber;
+        fuel = from.fuel;
+        boosterCharges = from.boosterCharges;
+        boosterReady = from.boosterReady;
+        boosterActivated = from.boosterActivated;
+        bombsAvailable = from.bombsAvailable;
+        bombs = from.bombs;
+        oresCollected = from.oresCollected;
+        tick = from.tick;
+        remainingSeconds = from.remainingSeconds;
+    }
+
+    /** Capture the state of an engine between two steps, e.g. a newly created one. */
+    public static GameState of(MineMazeEngine engine) {
+        GameState s = new GameState(new Layout(engine.getGrid(), engine.getConfig()));
+        Layout l = s.layout;
+        Board board = engine.getBoard();
+        s.chunks = new byte[l.chunksX * ((l.height + CHUNK_MASK) >> CHUNK_SHIFT)][];
+        int[] ores = new int[16];
+        int oreCount = 0;
+        for (int y = 0; y < l.height; y++) {
+            for (int x = 0; x < l.width; x++) {
+                int occupants = board.occupancyAt(x, y);
+                int bits = 0;
+                for (int i = 0; i < ITEM_TYPES.length; i++) {
+                    if ((occupants & Board.bit(ITEM_TYPES[i])) != 0) bits |= 1 << i;
+                }
+                if (bits == 0) continue;
+                if ((bits & ORE) != 0) {
+                    if (oreCount == ores.length) ores = Arrays.copyOf(ores, oreCount * 2);
+                    ores[oreCount++] = s.index(x, y);
+                }
+                int c = s.chunkOf(x, y);
+                if (s.chunks[c] == null) s.chunks[c] = new byte[CHUNK_SIZE * CHUNK_SIZE];
+                s.chunks[c][cellOf(x, y)] = (byte) bits;
+                s.itemHash ^= cellHash(s.index(x, y), bits);
+            }
+        }
+        s.ores = Arrays.copyOf(ores, oreCount);
+
+        Pusher p = engine.getPusher();
+        s.pusher = s.index(p.getX(), p.getY());
+        s.fuel = p.getFuel();
+        s.boosterCharges = p.getBoosterCharges();
+        s.boosterReady = p.isBoosterReady();
+        s.boosterActivated = p.isBoosterActivated();
+        Bomber b = engine.getBomber();
+        s.bomber = b != null ? s.index(b.getX(), b.getY()) : -1;
+        s.bombsAvailable = b != null ? b.getBombsAvailable() : 0;
+        List<Bomb> burning = b != null ? b.getBombs() : List.of();
+        int[] bombs = new int[2 * burning.size()];
+        int n = 0;
+        for (Bomb bomb : burning) {
+            if (!bomb.isActive() || !bomb.isArmed()) continue;
+            bombs[n++] = s.index(bomb.getX(), bomb.getY());
+            bombs[n++] = bomb.getFuseTicksRemaining();
+        }
+        s.bombs = n == bombs.length ? bombs : Arrays.copyOf(bombs, n);
+        s.oresCollected = engine.getOresCollected();
+        s.tick = engine.getTickCount();
+        s.remainingSeconds = engine.getRemainingSeconds();
+        return s;
+    }
+
+    /**
+     * This state, with canMovePusher pruning dead-cell pushes for it and every state
+     * stepped from it. Off by default, as such a push is legal: a spare ore may be parked
+     * in a dead cell to clear the way. Meant for searches, which only need the ores that
+     * are to be collected.
+     */
+    public GameState withDeadCellPruning() {
+        return layout.pruneDeadCells ? this : new GameState(this, new Layout(layout, true));
+    }
+
+    /**
+     * Play one tick: the pusher plans its move, the bomber moves or drops a bomb, the
+     * pusher moves (pushing ore, or a rock while boosted, and picking up fuel and
+     * boosters), and the bombs tick. A bomber move that is not allowed leaves the bomber
+     * where it is, as the engine does.
+     * @throws IllegalArgumentException if the pusher is to move where canMovePusher does
+     *         not allow: the engine would plan a longer way round to that cell instead
+     */
+    public GameState step(Command command) {
+        boolean pusherMoves = command.pusher() != Move.NONE;
+        if (pusherMoves && !canMovePusher(command.pusher())) {
+            throw new IllegalArgumentException("the pusher cannot move " + command.pusher()
+                    + " from " + x(pusher) + "-" + y(pusher));
+        }
+        GameState next = new GameState(this);
+        next.ownedChunks = new int[4];
+        next.remainingSeconds -= layout.periodSeconds;
+        next.tick++;
+
+        if (command.bomb()) {
+            if (bomber >= 0 && bombsAvailable > 0) next.placeBomb();
+        } else if (canMoveBomber(command.bomber())) {
+            next.bomber = bomber + command.bomber().dy * layout.width + command.bomber().dx;
+        }
+        if (pusherMoves) next.movePusher(command.pusher());
+        next.tickBombs();
+        next.ownedChunks = null;
+        return next;
+    }
+
+    /**
+     * @return true if the pusher may plan a step this way: the planning rule of Pusher. With
+     *         withDeadCellPruning, an ore is not pushed into a dead cell (MapGrid.isDeadCell)
+     *         while every ore left is needed to win
+     */
+    public boolean canMovePusher(Move move) {
+        if (move == Move.NONE || fuel <= 0) return false;
+        int x = x(pusher) + move.dx, y = y(pusher) + move.dy;
+        int occupants = occupancy(x, y);
+        if ((occupants & (WALL | HARD_ROCK | BOMBER)) != 0) return false;
+        if ((occupants & BOULDER) != 0) {
+            if (!boosterReady || boosterCharges <= 0) return false;
+            if ((occupancy(x + move.dx, y + move.dy) & PUSHER_BLOCKERS) != 0) return false;
+        }
+        if ((occupants & ORE) != 0) {
+            if (layout.pruneDeadCells && ores.length <= layout.oresWinning - oresCollected
+                    && layout.grid.isDeadCell(x + move.dx, y + move.dy)) return false;
+            return (occupancy(x + move.dx, y + move.dy) & (ORE_BLOCKERS | ORE)) == 0;
+        }
+        return true;
+    }
+
+    /** @return true if the bomber can step this way */
+    public boolean canMoveBomber(Move move) {
+        if (move == Move.NONE || bomber < 0) return false;
+        return (occupancy(x(bomber) + move.dx, y(bomber) + move.dy) & BOMBER_OBSTACLES) == 0;
+    }
+
+    // As Pusher.executeNextPathStep, for a one-step path
+    private void movePusher(Move move) {
+        int x = x(pusher) + move.dx, y = y(pusher) + move.dy;
+
+        // Booster: push the rock one tile on, if nothing is in the way
+        if ((items(x, y) & BOULDER) != 0 && boosterReady && boosterCharges > 0) {
+            int toX = x + move.dx, toY = y + move.dy;
+            if ((occupancy(toX, toY) & (WALL | HARD_ROCK | BOULDER | BOMBER)) == 0) {
+                setItems(x, y, items(x, y) & ~BOULDER);
+                setItems(toX, toY, items(toX, toY) | BOULDER);
+                if (!boosterActivated && boosterCharges == Pusher.BOOSTER_CHARGES) boosterActivated = true;
+                if (--boosterCharges == 0) boosterReady = false;
+            }
+        }
+
+        if ((occupancy(x, y) & PUSHER_BLOCKERS) != 0) return;
+        if ((items(x, y) & ORE) != 0) {
+            int toX = x + move.dx, toY = y + move.dy;
+            if ((occupancy(toX, toY) & (ORE_BLOCKERS | ORE)) != 0) return;
+            setItems(x, y, items(x, y) & ~ORE);
+            // An ore pushed onto a target is collected and leaves the board
+            int from = index(x, y);
+            int k = 0;
+            while (ores[k] != from) k++;
+            if (layout.grid.getCell(toX, toY) == MineMaze.ElementType.TARGET) {
+                oresCollected++;
+                int[] left = Arrays.copyOf(ores, ores.length - 1);
+                if (k < left.length) left[k] = ores[ores.length - 1];
+                ores = left;
+            } else {
+                setItems(toX, toY, items(toX, toY) | ORE);
+                ores = ores.clone();
+                ores[k] = index(toX, toY);
+            }
+        }
+
+        pusher = index(x, y);
+        if (fuel > 0) fuel--;
+        int here = items(x, y);
+        if ((here & FUEL) != 0) {
+            here &= ~FUEL;
+            fuel += Pusher.FUEL_REFILL;
+        }
+        if ((here & BOOSTER) != 0 && (!boosterReady && boosterCharges == 0 || boosterActivated)) {
+            here &= ~BOOSTER;
+            boosterReady = true;
+            boosterCharges = Pusher.BOOSTER_CHARGES;
+            boosterActivated = false;
+        }
+        setItems(x, y, here);
+    }
+
+    private void placeBomb() {
+        bombs = Arrays.copyOf(bombs, bombs.length + 2);
+        bombs[bombs.length - 2] = bomber;
+        bombs[bombs.length - 1] = Bomber.FUSE_TICKS;
+        bombsAvailable--;
+    }
+
+    // As MineMazeEngine.updateBombs: every bomb burns one tick, in placing order
+    private void tickBombs() {
+        if (bombs.length == 0) return;
+        int[] left = new int[bombs.length];
+        int n = 0;
+        for (int i = 0; i < bombs.length; i += 2) {
+            int fuse = bombs[i + 1] - 1;
+            if (fuse > 0) {
+                left[n++] = bombs[i];
+                left[n++] = fuse;
+                continue;
+            }
+            int x = x(bombs[i]), y = y(bombs[i]);
+            int r = Bomber.EXPLOSION_RADIUS;
+            explode(x, y);
+            explode(x, y - r);
+            explode(x, y + r);
+            explode(x - r, y);
+            explode(x + r, y);
+        }
+        bombs = n == left.length ? left : Arrays.copyOf(left, n);
+    }
+
+    private void explode(int x, int y) {
+        int bits = items(x, y);
+        if ((bits & (BOULDER | HARD_ROCK)) != 0) setItems(x, y, bits & ~(BOULDER | HARD_ROCK));
+    }
+
+    private int occupancy(int x, int y) {
+        if (x < 0 || x >= layout.width || y < 0 || y >= layout.height) return WALL;
+        MineMaze.ElementType cell = layout.grid.getCell(x, y);
+        int bits = items(x, y);
+        if (cell == MineMaze.ElementType.BORDER || cell == MineMaze.ElementType.OUTSIDE) bits |= WALL;
+        int i = index(x, y);
+        if (i == pusher) bits |= PUSHER;
+        if (i == bomber) bits |= BOMBER;
+        return bits;
+    }
+
+    private int items(int x, int y) {
+        if (x < 0 || x >= layout.width || y < 0 || y >= layout.height) return 0;
+        byte[] chunk = chunks[chunkOf(x, y)];
+        return chunk == null ? 0 : chunk[cellOf(x, y)];
+    }
+
+    // Copy on write: the first write to a chunk copies it (and, once, the chunk array)
+    private void setItems(int x, int y, int bits) {
+        int c = chunkOf(x, y);
+        byte[] chunk = chunks[c];
+        int old = chunk == null ? 0 : chunk[cellOf(x, y)];
+        if (old == bits) return;
+        if (!isOwned(c)) {
+            if (ownedCount == 0) chunks = chunks.clone();
+            chunk = chunk == null ? new byte[CHUNK_SIZE * CHUNK_SIZE] : chunk.clone();
+            chunks[c] = chunk;
+            if (ownedCount == ownedChunks.length) ownedChunks = Arrays.copyOf(ownedChunks, ownedCount * 2);
+            ownedChunks[ownedCount++] = c;
+        }
+        chunk[cellOf(x, y)] = (byte) bits;
+        int cell = index(x, y);
+        itemHash ^= cellHash(cell, old) ^ cellHash(cell, bits);
+    }
+
+    private boolean isOwned(int chunk) {
+        for (int i = 0; i < ownedCount; i++) {
+            if (ownedChunks[i] == chunk) return true;
+        }
+        return false;
+    }
+
+    private static long cellHash(int cell, int bits) {
+        if (bits == 0) return 0;
+        // SplitMix64 finaliser of the (cell, bits) pair
+        long z = ((long) cell << 8 | bits) * 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private int chunkOf(int x, int y) { return (y >> CHUNK_SHIFT) * layout.chunksX + (x >> CHUNK_SHIFT); }
+    private static int cellOf(int x, int y) { return (y & CHUNK_MASK) * CHUNK_SIZE + (x & CHUNK_MASK); }
+    private int index(int x, int y) { return y * layout.width + x; }
+    private int x(int index) { return index % layout.width; }
+    private int y(int index) { return index / layout.width; }
+
+    public boolean isRunning() { return oresCollected < layout.oresWinning && remainingSeconds >= 0; }
+    public boolean isWon() { return oresCollected == layout.oresWinning; }
+
+    /** @return true if an item of the type (ORE, BOULDER, HARD_ROCK, FUEL or BOOSTER) is at the cell */
+    public boolean has(int x, int y, MineMaze.ElementType type) {
+        for (int i = 0; i < ITEM_TYPES.length; i++) {
+            if (ITEM_TYPES[i] == type) return (items(x, y) & 1 << i) != 0;
+        }
+        throw new IllegalArgumentException(type + " is not an item");
+    }
+
+    public MapGrid getGrid() { return layout.grid; }
+    public int getPusherX() { return x(pusher); }
+    public int getPusherY() { return y(pusher); }
+    public boolean hasBomber() { return bomber >= 0; }
+    public int getBomberX() { return bomber < 0 ? -1 : x(bomber); }
+    public int getBomberY() { return bomber < 0 ? -1 : y(bomber); }
+    public int getFuel() { return fuel; }
+    public int getBoosterCharges() { return boosterCharges; }
+    public boolean isBoosterReady() { return boosterReady; }
+    public int getBombsAvailable() { return bombsAvailable; }
+    public int getBombCount() { return bombs.length / 2; }
+    public int getBombX(int i) { return x(bombs[2 * i]); }
+    public int getBombY(int i) { return y(bombs[2 * i]); }
+    public int getBombFuse(int i) { return bombs[2 * i + 1]; }
+    public int getOreCount() { return ores.length; }
+    public int getOreX(int i) { return x(ores[i]); }
+    public int getOreY(int i) { return y(ores[i]); }
+    public int getOresCollected() { return oresCollected; }
+    public int getOresWinning() { return layout.oresWinning; }
+    public int getTick() { return tick; }
+    public double getRemainingSeconds() { return remainingSeconds; }
+
+    /**
+     * States are equal when they differ at most in their clock (tick and remaining time),
+     * so a search can recognise a position it has reached before. Only states of the same
+     * game should be compared.
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof GameState s && fuel == s.fuel && isSamePosition(s);
+    }
+
+    @Override
+    public int hashCode() {
+        return positionHashCode() * 31 + fuel;
+    }
+
+    /**
+     * @return true if the states are equal but for their clock and the pusher's fuel; a
+     *         search can then keep the one with more fuel left
+     */
+    public boolean isSamePosition(GameState s) {
+        if (this == s) return true;
+        if (s.layout.grid != layout.grid) return false;
+        if (itemHash != s.itemHash || pusher != s.pusher || bomber != s.bomber
+                || boosterCharges != s.boosterCharges || boosterReady != s.boosterReady
+                || boosterActivated != s.boosterActivated || bombsAvailable != s.bombsAvailable
+                || oresCollected != s.oresCollected || !Arrays.equals(bombs, s.bombs)) return false;
+        for (int c = 0; c < chunks.length; c++) {
+            byte[] a = chunks[c], b = s.chunks[c];
+            if (a == b) continue;
+            if (a == null ? !isZero(b) : b == null ? !isZero(a) : !Arrays.equals(a, b)) return false;
+        }
+        return true;
+    }
+
+    // A chunk never written to is all zero
+    private static boolean isZero(byte[] chunk) {
+        for (byte b : chunk) {
+            if (b != 0) return false;
+        }
+        return true;
+    }
+
+    /** @return a hash code consistent with isSamePosition */
+    public int positionHashCode() {
+        long h = itemHash;
+        h = h * 31 + pusher;
+        h = h * 31 + bomber;
+        h = h * 31 + boosterCharges + (boosterReady ? 8 : 0) + (boosterActivated ? 16 : 0);
+        h = h * 31 + bombsAvailable;
+        h = h * 31 + oresCollected;
+        h = h * 31 + Arrays.hashCode(bombs);
+        return Long.hashCode(h);
+    }
+}
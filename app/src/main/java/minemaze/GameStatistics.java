@@ -1,69 +1,107 @@
 package minemaze;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of what happened in a game. The counters are LongAdders, so one instance can
+ * be shared by games running on several threads (BatchRunner) and read while they run,
+ * and recording stays a cheap uncontended add on the tick path.
+ */
 public class GameStatistics {
-    private int pusherMoves;
-    private int pusherFuelUsed;
-    private int bomberMoves;
-    private int bomberFuelUsed;
-    private int bombsPlaced;
-    private int rocksDestroyed;
-    private int boostersUsed;
-    
-    public GameStatistics() {
-        reset();
-    }
-    
+    private final LongAdder pusherMoves = new LongAdder();
+    private final LongAdder pusherFuelUsed = new LongAdder();
+    private final LongAdder bomberMoves = new LongAdder();
+    private final LongAdder bomberFuelUsed = new LongAdder();
+    private final LongAdder bombsPlaced = new LongAdder();
+    private final LongAdder rocksDestroyed = new LongAdder();
+    private final LongAdder boosterPickups = new LongAdder();
+    private final LongAdder boostersUsed = new LongAdder();
+
     public void reset() {
-        pusherMoves = 0;
-        pusherFuelUsed = 0;
-        bomberMoves = 0;
-        bomberFuelUsed = 0;
-        bombsPlaced = 0;
-        rocksDestroyed = 0;
-        boostersUsed = 0;
+        pusherMoves.reset();
+        pusherFuelUsed.reset();
+        bomberMoves.reset();
+        bomberFuelUsed.reset();
+        bombsPlaced.reset();
+        rocksDestroyed.reset();
+        boosterPickups.reset();
+        boostersUsed.reset();
     }
-    
+
     public void recordPusherMove(int fuelConsumed) {
-        pusherMoves++;
-        pusherFuelUsed += fuelConsumed;
+        pusherMoves.increment();
+        pusherFuelUsed.add(fuelConsumed);
     }
-    
+
     public void recordBomberMove(int fuelConsumed) {
-        bomberMoves++;
-        bomberFuelUsed += fuelConsumed;
+        bomberMoves.increment();
+        bomberFuelUsed.add(fuelConsumed);
     }
-    
+
     public void recordBombPlaced() {
-        bombsPlaced++;
+        bombsPlaced.increment();
     }
-    
+
     public void recordRockDestroyed() {
-        rocksDestroyed++;
+        rocksDestroyed.increment();
     }
-    
+
+    public void recordBoosterPickup() {
+        boosterPickups.increment();
+    }
+
+    /** One booster charge spent pushing a rock. */
     public void recordBoosterUsed() {
-        boostersUsed++;
+        boostersUsed.increment();
     }
-    
-    public int getPusherMoves() { return pusherMoves; }
-    public int getPusherFuelUsed() { return pusherFuelUsed; }
-    public int getBomberMoves() { return bomberMoves; }
-    public int getBomberFuelUsed() { return bomberFuelUsed; }
-    public int getBombsPlaced() { return bombsPlaced; }
-    public int getRocksDestroyed() { return rocksDestroyed; }
-    public int getBoostersUsed() { return boostersUsed; }
-    
+
+    public long getPusherMoves() { return pusherMoves.sum(); }
+    public long getPusherFuelUsed() { return pusherFuelUsed.sum(); }
+    public long getBomberMoves() { return bomberMoves.sum(); }
+    public long getBomberFuelUsed() { return bomberFuelUsed.sum(); }
+    public long getBombsPlaced() { return bombsPlaced.sum(); }
+    public long getRocksDestroyed() { return rocksDestroyed.sum(); }
+    public long getBoosterPickups() { return boosterPickups.sum(); }
+    public long getBoostersUsed() { return boostersUsed.sum(); }
+
     public String generateReport() {
         StringBuilder report = new StringBuilder();
-        report.append("Pusher-1 Moves: ").append(pusherMoves).append("\n");
-        report.append("Pusher-1 Fuel used: ").append(pusherFuelUsed).append("\n");
+        report.append("Pusher-1 Moves: ").append(getPusherMoves()).append("\n");
+        report.append("Pusher-1 Fuel used: ").append(getPusherFuelUsed()).append("\n");
+        long bomberMoves = getBomberMoves();
         if (bomberMoves > 0) {
             report.append("Bomber-1 Moves: ").append(bomberMoves).append("\n");
-            report.append("Bomber-1 Fuel used: ").append(bomberFuelUsed).append("\n");
+            report.append("Bomber-1 Fuel used: ").append(getBomberFuelUsed()).append("\n");
         }
-        report.append("Bombs placed: ").append(bombsPlaced).append("\n");
-        report.append("Rocks broken: ").append(rocksDestroyed).append("\n");
-        report.append("Boosters used: ").append(boostersUsed);
+        report.append("Bombs placed: ").append(getBombsPlaced()).append("\n");
+        report.append("Rocks broken: ").append(getRocksDestroyed()).append("\n");
+        report.append("Boosters picked up: ").append(getBoosterPickups()).append("\n");
+        report.append("Boosters used: ").append(getBoostersUsed());
         return report.toString();
     }
-}
\ No newline at end of file
+
+    /**
+     * Write the report to the file atomically: it is written to a temporary file next to
+     * the target and moved over it, so a reader never sees a half-written report.
+     */
+    public void writeTo(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(tmp, generateReport() + "\n", StandardCharsets.UTF_8);
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
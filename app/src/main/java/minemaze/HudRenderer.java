@@ -3,34 +3,126 @@ package minemaze;
 import ch.aplu.jgamegrid.GGBackground;
 
 import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * HudRenderer
  * ------------
- * Responsible for drawing simple HUD text (controls & placeholders for status).
+ * Responsible for drawing the HUD text: controls help, and the status of the pusher and
+ * the bomber (fuel, booster charges, bombs left and the fuse of each armed bomb).
+ * The status is only redrawn when one of its values changes, and it is composed from
+ * glyph images rasterised once, so an update costs a few image copies, not a text layout.
  */
 public final class HudRenderer {
+    public static final int STATUS_X = 10;
+    public static final int STATUS_WIDTH = 290;
+    public static final int STATUS_HEIGHT = 52;
+    private static final int STATUS_Y = 20;
+    private static final int BOMBS_Y = 45;
+    private static final int MAX_FUSES = 8;
+    private static final Font FONT = new Font("Arial", Font.BOLD, 14);
+    private static final String[] DIGITS = {"0", "1", "2", "3", "4", "5", "6", "7", "8", "9"};
+
+    private final Map<String, BufferedImage> glyphs = new HashMap<>(); // text + color -> rasterised text
+    private final FontMetrics metrics;
+
+    // Values on screen; -1 forces the first draw
+    private int shownFuel = -1;
+    private int shownCharges = -1;
+    private int shownBombs = -1;
+    private final int[] shownFuses = new int[MAX_FUSES];
+    private int shownFuseCount = -1;
+
+    public HudRenderer() {
+        Graphics2D g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        metrics = g.getFontMetrics(FONT);
+        g.dispose();
+    }
+
     public void drawControlsHelp(GGBackground bg, int cellSize, int gridHeight) {
         bg.setPaintColor(Color.DARK_GRAY);
         bg.drawText("Controls: Left Click=Guide Pusher", new Point(0, gridHeight * cellSize - 30));
         bg.drawText("Right Click=Place Bomb", new Point(0, gridHeight * cellSize - 15));
     }
 
-    public void updateStatusDisplay(GGBackground bg) {
-        bg.setPaintColor(new Color(240, 240, 240));
-        drawStatusBar(bg, 10, 20, "PUSHER");
-        drawBombCountdown(bg);
+    /**
+     * @return true if a value shown by the status display changed since it was last drawn;
+     *         the caller then clears the status area and calls {@link #drawStatusDisplay}
+     */
+    public boolean isStatusChanged(Frame frame) {
+        int fuses = Math.min(MAX_FUSES, frame.getFuseCount());
+        if (frame.getFuel() != shownFuel || frame.getBoosterCharges() != shownCharges
+                || frame.getBombsAvailable() != shownBombs || fuses != shownFuseCount) return true;
+        for (int i = 0; i < fuses; i++) {
+            if (shownFuses[i] != frame.getFuseTicks(i)) return true;
+        }
+        return false;
+    }
+
+    /** Draw the status display over a cleared status area and remember the values drawn. */
+    public void drawStatusDisplay(GGBackground bg, Frame frame, int simulationPeriodMs) {
+        shownFuel = frame.getFuel();
+        shownCharges = frame.getBoosterCharges();
+        shownBombs = frame.getBombsAvailable();
+        shownFuseCount = Math.min(MAX_FUSES, frame.getFuseCount());
+        for (int i = 0; i < shownFuseCount; i++) shownFuses[i] = frame.getFuseTicks(i);
+
+        Graphics2D g = bg.getContext();
+        drawStatusBar(g, STATUS_X, STATUS_Y, "PUSHER");
+        drawBombCountdown(g, STATUS_X, BOMBS_Y, simulationPeriodMs);
+    }
+
+    private void drawStatusBar(Graphics2D g, int x, int y, String name) {
+        x = draw(g, name + ": ", Color.BLACK, x, y);
+        x = draw(g, "Fuel: ", Color.BLACK, x, y);
+        x = drawNumber(g, shownFuel, Color.BLACK, x, y);
+        x = draw(g, "  Boost: ", Color.BLACK, x, y);
+        drawNumber(g, shownCharges, Color.BLACK, x, y);
+    }
+
+    private void drawBombCountdown(Graphics2D g, int x, int y, int simulationPeriodMs) {
+        x = draw(g, "BOMBS: ", Color.RED, x, y);
+        x = drawNumber(g, shownBombs, Color.RED, x, y);
+        if (shownFuseCount > 0) x = draw(g, "  Fuse:", Color.RED, x, y);
+        for (int i = 0; i < shownFuseCount; i++) {
+            // Tenths of a second left on the fuse
+            int tenths = shownFuses[i] * simulationPeriodMs / 100;
+            x = draw(g, " ", Color.RED, x, y);
+            x = drawNumber(g, tenths / 10, Color.RED, x, y);
+            x = draw(g, ".", Color.RED, x, y);
+            x = drawNumber(g, tenths % 10, Color.RED, x, y);
+            x = draw(g, "s", Color.RED, x, y);
+        }
+    }
+
+    /** Draw a non-negative number digit by digit from the glyph cache. */
+    private int drawNumber(Graphics2D g, int value, Color color, int x, int y) {
+        int divisor = 1;
+        while (value / divisor >= 10) divisor *= 10;
+        for (; divisor > 0; divisor /= 10) {
+            x = draw(g, DIGITS[value / divisor % 10], color, x, y);
+        }
+        return x;
     }
 
-    private void drawStatusBar(GGBackground bg, int x, int y, String name) {
-        bg.setPaintColor(Color.BLACK);
-        bg.drawText(name + ":", new Point(x, y));
-        bg.drawText("Fuel: 0", new Point(x + 70, y));
-        bg.drawText("Durability: 0", new Point(x + 120, y));
+    /** Copy the cached image of the text with its baseline at (x, y); @return the x after it */
+    private int draw(Graphics2D g, String text, Color color, int x, int y) {
+        BufferedImage image = glyphs.computeIfAbsent(text + '\0' + color.getRGB(), k -> rasterise(text, color));
+        g.drawImage(image, x, y - metrics.getAscent(), null);
+        return x + image.getWidth();
     }
 
-    private void drawBombCountdown(GGBackground bg) {
-        bg.setPaintColor(Color.RED);
-        bg.drawText("BOMBS: 3s", new Point(10, 45));
+    private BufferedImage rasterise(String text, Color color) {
+        BufferedImage image = new BufferedImage(Math.max(1, metrics.stringWidth(text)), metrics.getHeight(),
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setFont(FONT);
+        g.setColor(color);
+        g.drawString(text, 0, metrics.getAscent());
+        g.dispose();
+        return image;
     }
-}
\ No newline at end of file
+}
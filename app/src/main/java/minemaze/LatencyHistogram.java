@@ -0,0 +1,76 @@
+package minemaze;
+
+import java.util.Arrays;
+
+/**
+ * LatencyHistogram
+ * -----------------
+ * Fixed-size log-linear histogram of durations in nanoseconds, in the style of HdrHistogram:
+ * values below 16 are counted exactly, and every power of two above is split into 16
+ * sub-buckets, so any recorded value is known to within 1/16 (about 6%).
+ * Recording is one array increment and never allocates.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = SUB_COUNT + (63 - SUB_BITS) * SUB_COUNT;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts[indexOf(nanos)]++;
+        count++;
+        sum += nanos;
+        if (nanos < min) min = nanos;
+        if (nanos > max) max = nanos;
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_COUNT) return (int) value;
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - SUB_BITS;
+        return SUB_COUNT + shift * SUB_COUNT + (int) ((value >>> shift) & (SUB_COUNT - 1));
+    }
+
+    /** @return the highest value that falls into the bucket */
+    private static long highestValueOf(int index) {
+        if (index < SUB_COUNT) return index;
+        int shift = (index - SUB_COUNT) / SUB_COUNT;
+        long sub = SUB_COUNT + (index - SUB_COUNT) % SUB_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    public long getCount() { return count; }
+    public long getTotalNanos() { return sum; }
+    public long getMin() { return count == 0 ? 0 : min; }
+    public long getMax() { return max; }
+    public double getMean() { return count == 0 ? 0 : (double) sum / count; }
+
+    /**
+     * @param percentile 0 to 100
+     * @return a value that at least this percentage of the recorded values do not exceed
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(max, highestValueOf(i));
+        }
+        return max;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+}
@@ -0,0 +1,107 @@
+package minemaze;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * LogFileReader
+ * --------------
+ * Random access to the lines of a log file written by a FileLogSink, without loading
+ * the file. The file is scanned forward only as far as the highest line asked for,
+ * remembering the byte offset of every INDEX_STRIDE-th line, so a later seek
+ * re-reads at most INDEX_STRIDE lines.
+ */
+public final class LogFileReader implements AutoCloseable {
+    private static final int INDEX_STRIDE = 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    // checkpoints[k] = byte offset where line k * INDEX_STRIDE starts
+    private long[] checkpoints = new long[16];
+    private int checkpointCount = 1;
+
+    public LogFileReader(Path path) {
+        try {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open log file " + path, e);
+        }
+    }
+
+    /**
+     * @param movementIndex zero-based line number, as for LogParser.getLogLine
+     * @return the line without its newline
+     * @throws IndexOutOfBoundsException if the index is negative or the file has fewer lines
+     */
+    public String getLogLine(int movementIndex) {
+        if (movementIndex < 0) throw new IndexOutOfBoundsException("Log has no line " + movementIndex);
+        try {
+            long start = lineStart(movementIndex);
+            long size = channel.size();
+            if (start < 0 || start >= size) throw new IndexOutOfBoundsException("Log has no line " + movementIndex);
+
+            // Read up to the next newline (or end of file)
+            StringBuilder line = new StringBuilder();
+            long position = start;
+            while (position < size) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0) break;
+                byte[] array = buffer.array();
+                for (int i = 0; i < read; i++) {
+                    if (array[i] == '\n') return line.toString();
+                    line.append((char) array[i]);
+                }
+                position += read;
+            }
+            return line.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** @return byte offset where the line starts, or -1 if the file ends first */
+    private long lineStart(int target) throws IOException {
+        int k = Math.min(target / INDEX_STRIDE, checkpointCount - 1);
+        long position = checkpoints[k];
+        int line = k * INDEX_STRIDE;
+
+        // Scan forward counting newlines, recording checkpoints on the way
+        while (line < target) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) return -1;
+            byte[] array = buffer.array();
+            for (int i = 0; i < read; i++) {
+                if (array[i] != '\n') continue;
+                line++;
+                long next = position + i + 1;
+                if (line % INDEX_STRIDE == 0 && line / INDEX_STRIDE == checkpointCount) addCheckpoint(next);
+                if (line == target) return next;
+            }
+            position += read;
+        }
+        return position;
+    }
+
+    private void addCheckpoint(long position) {
+        if (checkpointCount == checkpoints.length) checkpoints = Arrays.copyOf(checkpoints, checkpointCount * 2);
+        checkpoints[checkpointCount++] = position;
+    }
+}
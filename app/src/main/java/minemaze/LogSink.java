@@ -0,0 +1,34 @@
+package minemaze;
+
+import java.nio.file.Path;
+
+/**
+ * LogSink
+ * --------
+ * Destination for the text game log, fed while the game runs: one line per tick
+ * (each ending in '\n') and finally the result line.
+ * I/O failures are reported as UncheckedIOException.
+ */
+public interface LogSink extends AutoCloseable {
+
+    void append(CharSequence text);
+
+    /** Flush and release resources; the default does nothing. */
+    @Override
+    default void close() {}
+
+    /** A sink that drops everything. */
+    static LogSink discard() {
+        return text -> {};
+    }
+
+    /** A sink that appends to an in-memory buffer. */
+    static LogSink toBuffer(StringBuilder buffer) {
+        return text -> buffer.append(text);
+    }
+
+    /** A sink that writes to a file through an NIO channel, replacing any existing file. */
+    static LogSink toFile(Path path) {
+        return new FileLogSink(path);
+    }
+}
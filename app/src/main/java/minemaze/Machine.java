@@ -1,32 +1,37 @@
 package minemaze;
 
-import ch.aplu.jgamegrid.Actor;
 import ch.aplu.jgamegrid.Location;
-import ch.aplu.jgamegrid.GameGrid;
-import java.awt.Color;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Abstract class for machine actors that can move within the maze.
+ * Abstract class for machines that can move within the maze.
  * Handles path calculation and step-by-step movement with collision detection.
  */
-public abstract class Machine extends Actor {
+public abstract class Machine extends Entity {
     protected List<Location> movePath = new ArrayList<>();
     protected int movePathIndex = 0;
     protected boolean isMoving = false;
     protected Location initialLocation;
-    protected Color borderColor;
+    private Location.CompassDirection direction = Location.EAST;
+
+    private static final int BLOCKERS = Board.bit(MineMaze.ElementType.BORDER)
+            | Board.bit(MineMaze.ElementType.BOULDER) | Board.bit(MineMaze.ElementType.HARD_ROCK);
 
-    public Machine(boolean rotatable, String spritePath) {
-        super(rotatable, spritePath);
+    public Machine(MineMaze.ElementType type) {
+        super(type);
     }
 
-    /**
-     * Set the border color for collision detection
-     */
-    public void setBorderColor(Color borderColor) {
-        this.borderColor = borderColor;
+    public Location.CompassDirection getDirection() {
+        return direction;
+    }
+
+    public void setDirection(Location.CompassDirection direction) {
+        this.direction = direction;
     }
 
     /**
@@ -52,18 +57,9 @@ public abstract class Machine extends Actor {
     /**
      * Check if this machine can move to the specified location
      */
-    protected boolean canMove(Location location, GameGrid grid) {
-        // Check for border color
-        if (borderColor != null && grid.getBg().getColor(location).equals(borderColor)) {
-            return false;
-        }
-
-        // Check for walls and rocks
-        Actor wall = grid.getOneActorAt(location, minemaze.Wall.class);
-        Actor rock = grid.getOneActorAt(location, minemaze.Rock.class);
-        Actor hardRock = grid.getOneActorAt(location, minemaze.HardRock.class);
-
-        return wall == null && rock == null && hardRock == null;
+    protected boolean canMove(Location location, Board board) {
+        // Check for border cells and rocks
+        return (board.occupancyAt(location) & BLOCKERS) == 0;
     }
 
     /**
@@ -72,4 +68,57 @@ public abstract class Machine extends Actor {
     public boolean isBusy() {
         return isMoving;
     }
-}
\ No newline at end of file
+
+    /** Write the movement state for an engine snapshot; the location is written with the board. */
+    void writeState(DataOutput out) throws IOException {
+        out.writeByte(direction.ordinal());
+        writeLocations(out, movePath);
+        out.writeInt(movePathIndex);
+        out.writeBoolean(isMoving);
+    }
+
+    /**
+     * Read the state written by writeState without changing the machine, so a bad snapshot
+     * leaves it as it was.
+     * @param counts entities of each type (by ordinal) in the snapshot's board lists
+     * @return applies the state, once the board lists are restored
+     * @throws IllegalArgumentException if the state is not valid
+     */
+    Runnable readState(DataInput in, int[] counts) throws IOException {
+        int d = in.readByte();
+        Location.CompassDirection[] directions = Location.CompassDirection.values();
+        if (d < 0 || d >= directions.length) throw new IllegalArgumentException("bad machine direction " + d);
+        List<Location> path = readLocations(in);
+        int pathIndex = in.readInt();
+        boolean moving = in.readBoolean();
+        return () -> {
+            direction = directions[d];
+            movePath = path;
+            movePathIndex = pathIndex;
+            isMoving = moving;
+        };
+    }
+
+    /** Write a list of locations as packed positions; a null list is written as -1. */
+    static void writeLocations(DataOutput out, List<Location> locations) throws IOException {
+        if (locations == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(locations.size());
+        for (Location l : locations) out.writeInt(TickLog.pack(l.x, l.y));
+    }
+
+    static List<Location> readLocations(DataInput in) throws IOException {
+        int n = in.readInt();
+        if (n < 0) return null;
+        List<Location> locations = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) locations.add(readLocation(in));
+        return locations;
+    }
+
+    static Location readLocation(DataInput in) throws IOException {
+        int p = in.readInt();
+        return new Location(TickLog.x(p), TickLog.y(p));
+    }
+}
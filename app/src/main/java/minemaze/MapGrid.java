@@ -1,17 +1,47 @@
 package minemaze;
 import ch.aplu.jgamegrid.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.stream.Collectors;
+import java.util.zip.CRC32;
 
 public class MapGrid
 {
+  /** Push distance of a dead cell: no pushes bring an ore on it onto a target. */
+  public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+  private static final MineMaze.ElementType[] ELEMENT_VALUES = MineMaze.ElementType.values();
+  private static final Map<Character, MineMaze.ElementType> ELEMENT_TYPES = Arrays.stream(MineMaze.ElementType.values())
+          .collect(Collectors.toMap(MineMaze.ElementType::getMapElement, element -> element));
+
   private int nbHorzCells = 20;
   private int nbVertCells = 11;
-  private MineMaze.ElementType[][] mapElements; // = new MineMaze.ElementType[nbHorzCells][nbVertCells];
+  private ByteBuffer cells; // ElementType ordinals, row-major: index = y * nbHorzCells + x
+  private long checksum = -1; // CRC32 of the cells, once computed or read from a binary header
   private int numberOfTargets = 0;
-  private final String map =
+  private int pusherCell = -1; // row-major index of the machines' start cells, or -1
+  private int bomberCell = -1;
+  private volatile int[] pushDistances; // see getPushDistance; computed at load, or on first use for binary maps
+  private static final byte TARGET = (byte) MineMaze.ElementType.TARGET.ordinal();
+  private static final byte PUSHER = (byte) MineMaze.ElementType.PUSHER.ordinal();
+  private static final byte BOMBER = (byte) MineMaze.ElementType.BOMBER.ordinal();
+  private static final String map =
     "    xxxxx           " + // 0 (19)
     "    x...x           " + // 1
     "    x...x           " + // 2
@@ -24,22 +54,259 @@ public class MapGrid
     "    x.....xxxxxxxxxx" + // 9
     "    xxxxxxx         ";  //10
 
+  /** The built-in map (map=0). */
   public MapGrid()
   {
-    mapElements = new MineMaze.ElementType[nbHorzCells][nbVertCells];
-    Map<Character, MineMaze.ElementType> elementTypeMap = Arrays.stream(MineMaze.ElementType.values())
-            .collect(Collectors.toMap(MineMaze.ElementType::getMapElement, element -> element));
-    // Copy structure into integer array
+    byte[] array = new byte[nbHorzCells * nbVertCells];
+    // Copy structure into byte array
+    for (int index = 0; index < array.length; index++)
+    {
+      array[index] = (byte) ELEMENT_TYPES.get(map.charAt(index)).ordinal();
+      countCell(array[index], index);
+    }
+    cells = ByteBuffer.wrap(array);
+    pushDistances = computePushDistances();
+  }
+
+  private MapGrid(List<byte[]> rows, int width)
+  {
+    nbHorzCells = width;
+    nbVertCells = rows.size();
+    byte[] array = new byte[nbHorzCells * nbVertCells];
+    // Short lines are padded with outside cells
+    Arrays.fill(array, (byte) MineMaze.ElementType.OUTSIDE.ordinal());
     for (int k = 0; k < nbVertCells; k++)
     {
-      for (int i = 0; i < nbHorzCells; i++)
+      byte[] row = rows.get(k);
+      System.arraycopy(row, 0, array, k * nbHorzCells, row.length);
+      for (int i = 0; i < row.length; i++)
       {
-        mapElements[i][k] = elementTypeMap.get(map.charAt(nbHorzCells * k + i));
-        if (mapElements[i][k] == MineMaze.ElementType.TARGET) {
-          numberOfTargets ++;
+        countCell(row[i], k * nbHorzCells + i);
+      }
+    }
+    cells = ByteBuffer.wrap(array);
+    pushDistances = computePushDistances();
+  }
+
+  private MapGrid(int width, int height, int targets, int pusherCell, int bomberCell, long checksum, ByteBuffer cells)
+  {
+    nbHorzCells = width;
+    nbVertCells = height;
+    numberOfTargets = targets;
+    this.pusherCell = pusherCell;
+    this.bomberCell = bomberCell;
+    this.checksum = checksum;
+    this.cells = cells;
+  }
+
+  // Header values gathered while the cells are parsed, so nothing needs a scan of the map later
+  private void countCell(byte cell, int index)
+  {
+    if (cell == TARGET) {
+      numberOfTargets ++;
+    }
+    if (cell == PUSHER && pusherCell < 0) pusherCell = index;
+    if (cell == BOMBER && bomberCell < 0) bomberCell = index;
+  }
+
+  /**
+   * The map selected by the "map" property: 0 (or no property) is the built-in map,
+   * anything else a map file path, tried on the file system (relative to baseDir, if given)
+   * and then on the classpath.
+   */
+  public static MapGrid fromProperties(Properties properties, Path baseDir) throws IOException
+  {
+    String name = properties.getProperty("map", "0").trim();
+    if (name.equals("0")) return new MapGrid();
+
+    Path path = baseDir != null ? baseDir.resolve(name) : Path.of(name);
+    if (Files.exists(path)) return name.endsWith(BINARY_EXTENSION) ? openBinary(path) : load(path);
+    InputStream resource = MapGrid.class.getClassLoader().getResourceAsStream(name);
+    if (resource == null) throw new IOException("Map not found: " + name);
+    try (Reader reader = new InputStreamReader(resource, StandardCharsets.US_ASCII))
+    {
+      return load(reader, name);
+    }
+  }
+
+  public static MapGrid load(Path path) throws IOException
+  {
+    try (Reader reader = Files.newBufferedReader(path, StandardCharsets.US_ASCII))
+    {
+      return load(reader, path.toString());
+    }
+  }
+
+  /**
+   * Parse a map line by line, one row per line, using the ElementType map characters.
+   * Rows may differ in length. The map is then validated: exactly one pusher, at most
+   * one bomber, and every target reachable from the pusher through non-wall cells.
+   * @throws IllegalArgumentException naming the source, line and column of the problem
+   */
+  public static MapGrid load(Reader reader, String source) throws IOException
+  {
+    BufferedReader lines = reader instanceof BufferedReader b ? b : new BufferedReader(reader);
+    List<byte[]> rows = new ArrayList<>();
+    int width = 0;
+    String line;
+    while ((line = lines.readLine()) != null)
+    {
+      byte[] row = new byte[line.length()];
+      for (int i = 0; i < row.length; i++)
+      {
+        MineMaze.ElementType t = ELEMENT_TYPES.get(line.charAt(i));
+        if (t == null || t == MineMaze.ElementType.BOMB || t == MineMaze.ElementType.BOMB_MARKER)
+        {
+          throw new IllegalArgumentException(source + ":" + (rows.size() + 1) + ":" + (i + 1)
+                  + ": unexpected map character '" + line.charAt(i) + "'");
         }
+        row[i] = (byte) t.ordinal();
       }
+      rows.add(row);
+      width = Math.max(width, row.length);
     }
+    if (rows.isEmpty() || width == 0) throw new IllegalArgumentException(source + ": empty map");
+
+    MapGrid grid = new MapGrid(rows, width);
+    grid.validate(source);
+    return grid;
+  }
+
+  private void validate(String source)
+  {
+    int pusher = -1;
+    int pushers = 0;
+    int bombers = 0;
+    for (int index = 0; index < getCellCount(); index++)
+    {
+      if (getCell(index) == MineMaze.ElementType.PUSHER) { pushers++; pusher = index; }
+      if (getCell(index) == MineMaze.ElementType.BOMBER) bombers++;
+    }
+    if (pushers != 1) throw new IllegalArgumentException(source + ": expected 1 pusher, found " + pushers);
+    if (bombers > 1) throw new IllegalArgumentException(source + ": expected at most 1 bomber, found " + bombers);
+
+    // Flood fill from the pusher; rocks count as open since they can be bombed or pushed
+    boolean[] reached = new boolean[getCellCount()];
+    int[] queue = new int[getCellCount()]; // each cell is queued at most once
+    int head = 0, tail = 0;
+    reached[pusher] = true;
+    queue[tail++] = pusher;
+    int[][] steps = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    while (head < tail)
+    {
+      int cell = queue[head++];
+      int x = x(cell), y = y(cell);
+      for (int[] step : steps)
+      {
+        int nx = x + step[0], ny = y + step[1];
+        if (nx < 0 || nx >= nbHorzCells || ny < 0 || ny >= nbVertCells) continue;
+        int next = index(nx, ny);
+        MineMaze.ElementType t = getCell(next);
+        if (reached[next] || t == MineMaze.ElementType.BORDER || t == MineMaze.ElementType.OUTSIDE) continue;
+        reached[next] = true;
+        queue[tail++] = next;
+      }
+    }
+    for (int index = 0; index < getCellCount(); index++)
+    {
+      if (cells.get(index) == TARGET && !reached[index])
+      {
+        throw new IllegalArgumentException(source + ": target at " + x(index) + "-" + y(index) + " is not reachable from the pusher");
+      }
+    }
+  }
+
+  /*
+   * Binary map format (".mmap"), all big-endian:
+   *   int magic "MMAP", int version, int width, int height, int target count,
+   *   int pusher cell, int bomber cell (row-major indices, -1 for none),
+   *   long CRC32 of the cells, then width * height cell bytes (ElementType ordinals, row-major).
+   * The header gives the dimensions, target count and machines without touching the cells,
+   * and the cells are memory-mapped, so opening a map costs the same whatever its size;
+   * pages are read in as cells are first visited.
+   */
+  public static final String BINARY_EXTENSION = ".mmap";
+  private static final int BINARY_MAGIC = 0x4d4d4150; // "MMAP"
+  private static final int BINARY_VERSION = 2;
+  private static final int BINARY_HEADER_SIZE = 7 * Integer.BYTES + Long.BYTES;
+
+  /**
+   * Open a binary map by mapping its cells read-only. The cells are not scanned: the map
+   * was validated when it was written, and {@link #verifyChecksum()} checks it on demand.
+   * A cell byte that is no element type (a corrupt or newer file) throws an
+   * IllegalArgumentException when the cell is read.
+   * @throws IllegalArgumentException if the header is not a valid binary map header
+   */
+  public static MapGrid openBinary(Path path) throws IOException
+  {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+    {
+      ByteBuffer header = ByteBuffer.allocate(BINARY_HEADER_SIZE);
+      while (header.hasRemaining())
+      {
+        if (channel.read(header) < 0) throw new IllegalArgumentException(path + ": truncated map header");
+      }
+      header.flip();
+      if (header.getInt() != BINARY_MAGIC) throw new IllegalArgumentException(path + ": not a binary map");
+      int version = header.getInt();
+      if (version != BINARY_VERSION) throw new IllegalArgumentException(path + ": unsupported map version " + version);
+      int width = header.getInt();
+      int height = header.getInt();
+      int targets = header.getInt();
+      int pusher = header.getInt();
+      int bomber = header.getInt();
+      long checksum = header.getLong();
+      long size = (long) width * height;
+      if (width <= 0 || height <= 0 || size > Integer.MAX_VALUE || channel.size() < BINARY_HEADER_SIZE + size)
+      {
+        throw new IllegalArgumentException(path + ": bad map size " + width + "x" + height);
+      }
+      if (pusher < -1 || pusher >= size || bomber < -1 || bomber >= size)
+      {
+        throw new IllegalArgumentException(path + ": bad machine cell " + pusher + ", " + bomber);
+      }
+      // The mapping stays valid after the channel is closed
+      ByteBuffer cells = channel.map(FileChannel.MapMode.READ_ONLY, BINARY_HEADER_SIZE, size);
+      return new MapGrid(width, height, targets, pusher, bomber, checksum, cells);
+    }
+  }
+
+  /** Write this map in the binary format, for {@link #openBinary(Path)}. */
+  public void writeBinary(Path path) throws IOException
+  {
+    ByteBuffer header = ByteBuffer.allocate(BINARY_HEADER_SIZE);
+    header.putInt(BINARY_MAGIC).putInt(BINARY_VERSION)
+            .putInt(nbHorzCells).putInt(nbVertCells).putInt(numberOfTargets)
+            .putInt(pusherCell).putInt(bomberCell)
+            .putLong(getChecksum())
+            .flip();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+    {
+      ByteBuffer body = cells.duplicate().clear();
+      while (header.hasRemaining()) channel.write(header);
+      while (body.hasRemaining()) channel.write(body);
+    }
+  }
+
+  /** @return the CRC32 of the cells; for binary maps, the one stored in the header */
+  public long getChecksum()
+  {
+    if (checksum < 0) checksum = computeChecksum();
+    return checksum;
+  }
+
+  /** @return true if the cells match the checksum, reading every cell of a binary map */
+  public boolean verifyChecksum()
+  {
+    return getChecksum() == computeChecksum();
+  }
+
+  private long computeChecksum()
+  {
+    CRC32 crc = new CRC32();
+    crc.update(cells.duplicate().clear());
+    return crc.getValue();
   }
 
   public int getNbHorzCells()
@@ -54,8 +321,151 @@ public class MapGrid
 
   public int getNumberOfTargets() { return numberOfTargets; }
 
+  /** @return the row-major index of the pusher's start cell, or -1 if the map has none */
+  public int getPusherCell() { return pusherCell; }
+
+  /** @return the row-major index of the bomber's start cell, or -1 if the map has none */
+  public int getBomberCell() { return bomberCell; }
+
+  public int getCellCount() { return nbHorzCells * nbVertCells; }
+
   public MineMaze.ElementType getCell(Location location)
   {
-    return mapElements[location.x][location.y];
+    return getCell(location.x, location.y);
+  }
+
+  public MineMaze.ElementType getCell(int x, int y)
+  {
+    return element(index(x, y));
+  }
+
+  /** @param index a row-major cell index, see {@link #index(int, int)} */
+  public MineMaze.ElementType getCell(int index)
+  {
+    return element(index);
+  }
+
+  // Binary maps are not scanned when opened, so a cell byte is checked when it is read
+  private MineMaze.ElementType element(int index)
+  {
+    int ordinal = cells.get(index);
+    if (ordinal < 0 || ordinal >= ELEMENT_VALUES.length)
+    {
+      throw new IllegalArgumentException("map cell " + x(index) + "-" + y(index) + " holds no element type: " + ordinal);
+    }
+    return ELEMENT_VALUES[ordinal];
+  }
+
+  public int index(int x, int y) { return y * nbHorzCells + x; }
+  public int x(int index) { return index % nbHorzCells; }
+  public int y(int index) { return index / nbHorzCells; }
+
+  /**
+   * @return true if an ore on this cell can never be pushed onto a target, whatever else
+   *         is on the board: only walls are taken into account, as everything else can be
+   *         pushed or bombed away. Walls and cells off the map are dead too.
+   */
+  public boolean isDeadCell(int x, int y)
+  {
+    return getPushDistance(x, y) == UNREACHABLE;
+  }
+
+  /** @return a copy of the dead cells (see {@link #isDeadCell}), by row-major cell index */
+  public BitSet getDeadCells()
+  {
+    int[] distances = pushDistances();
+    BitSet dead = new BitSet(distances.length);
+    for (int index = 0; index < distances.length; index++)
+    {
+      if (distances[index] == UNREACHABLE) dead.set(index);
+    }
+    return dead;
+  }
+
+  /**
+   * @return the fewest pushes that bring an ore on this cell onto a target, taking only
+   *         walls into account as isDeadCell does, or UNREACHABLE for a dead cell
+   */
+  public int getPushDistance(int x, int y)
+  {
+    if (x < 0 || x >= nbHorzCells || y < 0 || y >= nbVertCells) return UNREACHABLE;
+    return pushDistances()[index(x, y)];
+  }
+
+  /** @return a copy of the push distances (see {@link #getPushDistance}), by row-major cell index */
+  public int[] getPushDistances()
+  {
+    return pushDistances().clone();
+  }
+
+  private int[] pushDistances()
+  {
+    // Binary maps are not scanned when opened; two threads may both compute the same array
+    int[] distances = pushDistances;
+    if (distances == null) pushDistances = distances = computePushDistances();
+    return distances;
+  }
+
+  /*
+   * Sokoban dead squares: pull the ores back from every target, breadth first. An ore can be
+   * pushed from cell c to its neighbour n if c and the cell behind it, where the pusher
+   * stands, are not walls; so c is one push further than n. The cells never reached are dead.
+   */
+  private int[] computePushDistances()
+  {
+    int count = getCellCount();
+    int[] distances = new int[count];
+    Arrays.fill(distances, UNREACHABLE);
+    int[] queue = new int[count]; // each cell is queued at most once
+    int head = 0, tail = 0;
+    for (int index = 0; index < count; index++)
+    {
+      if (cells.get(index) == TARGET)
+      {
+        distances[index] = 0;
+        queue[tail++] = index;
+      }
+    }
+    int[][] steps = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    while (head < tail)
+    {
+      int cell = queue[head++];
+      int x = x(cell), y = y(cell);
+      for (int[] step : steps)
+      {
+        int oreX = x - step[0], oreY = y - step[1];
+        if (isWall(oreX, oreY) || isWall(oreX - step[0], oreY - step[1])) continue;
+        int ore = index(oreX, oreY);
+        if (distances[ore] != UNREACHABLE) continue;
+        distances[ore] = distances[cell] + 1;
+        queue[tail++] = ore;
+      }
+    }
+    return distances;
+  }
+
+  private boolean isWall(int x, int y)
+  {
+    if (x < 0 || x >= nbHorzCells || y < 0 || y >= nbVertCells) return true;
+    MineMaze.ElementType t = getCell(x, y);
+    return t == MineMaze.ElementType.BORDER || t == MineMaze.ElementType.OUTSIDE;
+  }
+
+  public interface CellVisitor
+  {
+    void visit(int x, int y, MineMaze.ElementType type);
+  }
+
+  /** Visit every cell in row-major order: left to right, then top to bottom. */
+  public void forEachCell(CellVisitor visitor)
+  {
+    int index = 0;
+    for (int y = 0; y < nbVertCells; y++)
+    {
+      for (int x = 0; x < nbHorzCells; x++)
+      {
+        visitor.visit(x, y, element(index++));
+      }
+    }
   }
 }
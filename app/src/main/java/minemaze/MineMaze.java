@@ -4,12 +4,11 @@ import ch.aplu.jgamegrid.*;
 
 import java.awt.*;
 import java.util.*;
-import java.util.List;
 
 /**
  * MineMaze
  * ---------
- * Main game controller and orchestrator.
+ * Main game window: renders a MineMazeEngine through JGameGrid and forwards mouse input to it.
  */
 public class MineMaze extends GameGrid implements GGMouseListener {
 
@@ -17,7 +16,7 @@ public class MineMaze extends GameGrid implements GGMouseListener {
         OUTSIDE("Outside", ' '), EMPTY("Empty", '.'), BORDER("Border", 'x'),
         PUSHER("Pusher", 'P'), ORE("Ore", '*'), BOULDER("Boulder", 'r'), TARGET("Target", 'o'),
         BOMB_MARKER("BombMarker", 'm'), BOOSTER("Booster", 'b'), HARD_ROCK("HardRock", 'h'),
-        BOMBER("Bomber", 'B');
+        BOMBER("Bomber", 'B'), FUEL("Fuel", 'f'), BOMB("Bomb", '@');
 
         private final String shortType;
         private final char mapElement;
@@ -46,19 +45,25 @@ public class MineMaze extends GameGrid implements GGMouseListener {
     // Config
     private final GameConfig cfg;
 
-    // Primary actors
-    private Pusher pusher;
-    private Bomber bomber;
+    // Simulation core; this class only renders its state and forwards input
+    private final MineMazeEngine engine;
+    private final DirtyCells dirtyCells;
 
-    // Game state
-    private boolean finished = false;
-    private double gameDuration;
-    private final int oresWinning;
-    private int oresCollected = 0;
-    private int autoMovementIndex = 0;
+    // Render thread state: actors per entity, and the frames handed over by the simulation
+    private final Map<Entity, Sprite> sprites = new IdentityHashMap<>();
+    private final FrameExchanger<Frame> frames = new FrameExchanger<>();
+    private int renderedFrames;
 
-    // Log buffer used by tests to verify game progress
-    private final StringBuilder logResult = new StringBuilder();
+    // Real-time pacing of the simulation
+    private static final int MAX_CATCH_UP_TICKS = 5;
+    private final FixedTimestep timestep;
+
+    private static final class Sprite {
+        final Actor actor;
+        int frame; // last frame the entity was in
+
+        Sprite(Actor actor) { this.actor = actor; }
+    }
 
     public MineMaze(Properties properties, MapGrid grid) {
         super(grid.getNbHorzCells(), grid.getNbVertCells(), 30, false);
@@ -68,143 +73,166 @@ public class MineMaze extends GameGrid implements GGMouseListener {
 
         this.cfg = new GameConfig(properties);
         setSimulationPeriod(cfg.simulationPeriodMs);
-        this.gameDuration = cfg.durationSeconds;
-        this.oresWinning = cfg.oresWinning;
+        this.engine = new MineMazeEngine(cfg, grid);
+        this.dirtyCells = new DirtyCells(nbHorzCells, nbVertCells);
+        this.timestep = new FixedTimestep(cfg.simulationPeriodMs, MAX_CATCH_UP_TICKS);
     }
 
     public String runApp(boolean showUI) {
+        // Fast-forward runs headless: the engine advances as fast as possible with its own
+        // clock, so the log matches a real-time run without touching the GameGrid at all.
+        if (cfg.fastForward) return engine.run();
+
         // Draw the static board (rendering responsibility stays in BoardRenderer)
         boardRenderer.drawBoard(getBg(), grid);
 
-        // Create actors (creation responsibility is in MineMazeCreator)
-        MineMazeCreator.createActors(this, cfg, grid);
+        // Create actors mirroring the engine's entities; the whole grid is on screen
+        engine.getBoard().materialise(0, 0, nbHorzCells - 1, nbVertCells - 1);
+        Frame first = Frame.capture(engine);
+        syncActors(first); // leaves the whole scene dirty, so the first rendered frame paints it
+        setPaintOrder(Target.class); // ensure target paints under ore
 
         // HUD & input (unchanged)
         getBg().setFont(new Font("Arial", Font.BOLD, 14));
         hud.drawControlsHelp(getBg(), 30, nbVertCells);
+        updateStatusDisplay(first);
         addMouseListener(this, GGMouse.lPress | GGMouse.rPress);
 
         if (showUI) show();
-        if (cfg.autoMode) doRun();
 
-        while (oresCollected < oresWinning && gameDuration >= 0) {
+        // The simulation never waits for the renderer: each tick publishes a snapshot, and
+        // a renderer that falls behind skips to the latest one.
+        Thread renderThread = new Thread(this::renderFrames, "MineMaze-render");
+        renderThread.setDaemon(true);
+        renderThread.start();
+        engine.startStatisticsExport();
+        timestep.start();
+        while (engine.isRunning()) {
+            int due;
             try {
-                Thread.sleep(getSimulationPeriod());
-                gameDuration -= getSimulationPeriod() / 1000.0;
-                setTitle(String.format("Ores: %d/%d | Time: %.1fs", oresCollected, oresWinning, gameDuration));
-
-                if (cfg.autoMode) {
-                    if (pusher != null) pusher.autoMoveNext(autoMovementIndex);
-                    if (bomber != null) bomber.autoMoveNext(autoMovementIndex, BOMB_COMMAND, this::refresh);
-                    if (pusher != null) pusher.executeNextPathStep();
-                    autoMovementIndex++;
-                } else {
-                    if (pusher != null) pusher.executeNextPathStep();
-                }
-
-                if (bomber != null) bomber.handleMovement();
-
-                updateBombs();
-                refresh();
-                updateLogResult();
-                hud.updateStatusDisplay(getBg());
-
+                due = timestep.awaitTicks();
             } catch (InterruptedException e) {
                 throw new RuntimeException(e);
             }
+
+            for (int i = 0; i < due && engine.isRunning(); i++) engine.step();
+            frames.publish(Frame.capture(engine));
+        }
+        frames.close();
+        try {
+            renderThread.join();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
         }
 
         doPause();
-        setTitle(oresCollected == oresWinning ? "Mission Complete. Well done!" : "Mission Failed. You ran out of time");
-        logResult.append(oresCollected == oresWinning ? "You won" : "You lost");
-        finished = true;
-        return logResult.toString();
+        setTitle(engine.isWon() ? "Mission Complete. Well done!" : "Mission Failed. You ran out of time");
+        return engine.finish();
     }
 
-    void onPusherCreated(Pusher p) {
-        this.pusher = p;
-        p.setupPusher(cfg.autoMode, cfg.pusherMoves);
+    /** Render thread: draw frames until the simulation closes the exchanger. */
+    private void renderFrames() {
+        try {
+            Frame frame;
+            while ((frame = frames.take()) != null) render(frame);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
-    void onBomberCreated(Bomber b) {
-        this.bomber = b;
-        b.setupBomberControls(cfg.bomberMoves);
-        b.setBorderColor(borderColor);
+    private void render(Frame frame) {
+        PhaseTimer timer = engine.getPhaseTimer();
+        long t = timer.start();
+        setTitle(String.format("Ores: %d/%d | Time: %.1fs",
+                frame.getOresCollected(), frame.getOresWinning(), frame.getRemainingSeconds()));
+        updateStatusDisplay(frame);
+        timer.stop(PhaseTimer.Phase.HUD, t);
+
+        t = timer.start();
+        syncActors(frame);
+        // JGameGrid repaints the whole canvas: refresh once for the frame, and not at all when nothing changed
+        if (!dirtyCells.isEmpty()) {
+            refresh();
+            dirtyCells.clear();
+        }
+        timer.stop(PhaseTimer.Phase.RENDER, t);
     }
 
-    @Override
-    public boolean mouseEvent(GGMouse mouse) {
-        Location loc = toLocationInGrid(mouse.getX(), mouse.getY());
-        if (mouse.getEvent() == GGMouse.lPress) {
-            if (pusher != null) pusher.guideToLocation(loc);
-        } else if (mouse.getEvent() == GGMouse.rPress) {
-            if (bomber != null && !bomber.isBusy() && bomber.getBombsAvailable() > 0) {
-                BombMarker marker = new BombMarker();
-                addActor(marker, loc);
-                marker.show();
-                refresh();
-                bomber.startMoveToBomb(loc);
-                bomber.setPendingBombMarker(marker);
-            }
+    /** Redraw the HUD status over freshly drawn board cells, only when a value changed. */
+    private void updateStatusDisplay(Frame frame) {
+        if (!hud.isStatusChanged(frame)) return;
+        int cellSize = getCellSize();
+        int x0 = HudRenderer.STATUS_X / cellSize, x1 = (HudRenderer.STATUS_X + HudRenderer.STATUS_WIDTH) / cellSize;
+        int y1 = HudRenderer.STATUS_HEIGHT / cellSize;
+        boardRenderer.drawCells(getBg(), grid, x0, 0, x1, y1);
+        hud.drawStatusDisplay(getBg(), frame, cfg.simulationPeriodMs);
+        for (int y = 0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) dirtyCells.mark(x, y);
         }
-        return true;
     }
 
-    private void updateBombs() {
-        if (bomber == null) return;
-        Iterator<Bomb> it = bomber.getBombs().iterator();
-        while (it.hasNext()) {
-            Bomb b = it.next();
-            if (b.isActive()) {
-                b.tick();
-                if (!b.isActive()) it.remove();
+    /**
+     * Bring the actor scene in line with a frame: add, move, turn, show/hide and remove actors,
+     * marking every cell whose picture changes.
+     */
+    private void syncActors(Frame frame) {
+        int stamp = ++renderedFrames;
+        for (int i = 0; i < frame.size(); i++) {
+            Location loc = new Location(frame.getX(i), frame.getY(i));
+            Sprite sprite = sprites.get(frame.getEntity(i));
+            if (sprite == null) {
+                sprite = new Sprite(MineMazeCreator.createActor(frame.getType(i)));
+                addActor(sprite.actor, loc);
+                sprites.put(frame.getEntity(i), sprite);
+                dirtyCells.mark(loc);
+            } else if (!sprite.actor.getLocation().equals(loc)) {
+                dirtyCells.mark(sprite.actor.getLocation());
+                dirtyCells.mark(loc);
+                sprite.actor.setLocation(loc);
+            }
+            sprite.frame = stamp;
+            Actor actor = sprite.actor;
+            Location.CompassDirection direction = frame.getDirection(i);
+            if (direction != null && actor.getDirection() != direction.getDirection()) {
+                actor.setDirection(direction);
+                dirtyCells.mark(loc);
+            }
+            if (actor.isVisible() != frame.isVisible(i)) {
+                if (frame.isVisible(i)) actor.show(); else actor.hide();
+                dirtyCells.mark(loc);
             }
         }
-    }
-
-    private void updateLogResult() {
-        List<Actor> pushers = getActors(Pusher.class);
-        List<Actor> ores = getActors(Ore.class);
-        List<Actor> targets = getActors(Target.class);
-        List<Actor> rocks = getActors(Rock.class);
-        List<Actor> bombers = getActors(Bomber.class);
-        List<Actor> markers = getActors(BombMarker.class);
-        List<Actor> boosters = getActors(Booster.class);
-        List<Actor> heavyRocks = getActors(HardRock.class);
-
-        int pusherFuel = pusher != null ? pusher.getFuel() : 0;
-
-        logResult.append(autoMovementIndex).append("#")
-                .append(ElementType.PUSHER.getShortType()).append(actorLocations(pushers)).append("-Fuel:").append(pusherFuel).append("#")
-                .append(ElementType.ORE.getShortType()).append(actorLocations(ores)).append("#")
-                .append(ElementType.TARGET.getShortType()).append(actorLocations(targets)).append("#")
-                .append(ElementType.BOULDER.getShortType()).append(actorLocations(rocks)).append("#")
-                .append(ElementType.BOMBER.getShortType()).append(actorLocations(bombers)).append("#")
-                .append(ElementType.BOMB_MARKER.getShortType()).append(actorLocations(markers)).append("#")
-                .append(ElementType.BOOSTER.getShortType()).append(actorLocations(boosters)).append("#")
-                .append(ElementType.HARD_ROCK.getShortType()).append(actorLocations(heavyRocks))
-                .append("\n");
-    }
 
-    private String actorLocations(List<Actor> actors) {
-        StringBuilder sb = new StringBuilder();
-        boolean any = false;
-        for (Actor a : actors) {
-            if (a.isVisible()) {
-                if (!any) { sb.append(":"); any = true; }
-                sb.append(a.getX()).append("-").append(a.getY()).append(",");
+        // Entities missing from the frame have left the board
+        Iterator<Sprite> it = sprites.values().iterator();
+        while (it.hasNext()) {
+            Sprite sprite = it.next();
+            if (sprite.frame != stamp) {
+                dirtyCells.mark(sprite.actor.getLocation());
+                removeActor(sprite.actor);
+                it.remove();
             }
         }
-        if (any) sb.deleteCharAt(sb.length() - 1);
-        return sb.toString();
     }
 
-    public void incrementOresCollected() {
-        oresCollected++;
+    @Override
+    public boolean mouseEvent(GGMouse mouse) {
+        Location loc = toLocationInGrid(mouse.getX(), mouse.getY());
+        if (mouse.getEvent() == GGMouse.lPress) {
+            engine.guidePusher(loc);
+        } else if (mouse.getEvent() == GGMouse.rPress) {
+            engine.requestBomb(loc);
+        }
+        return true;
     }
 
+    public MineMazeEngine getEngine() { return engine; }
+    /** @return the number of snapshots the renderer skipped because it was behind the simulation */
+    public long getDroppedFrameCount() { return frames.getDroppedCount(); }
+    /** @return the real-time scheduler, with its overrun metrics */
+    public FixedTimestep getTimestep() { return timestep; }
     public int getNbHorzCells() { return nbHorzCells; }
     public int getNbVertCells() { return nbVertCells; }
     public Color getBorderColor() { return borderColor; }
-    public boolean isFinished() { return finished; }
-}
\ No newline at end of file
+    public boolean isFinished() { return engine.isFinished(); }
+}
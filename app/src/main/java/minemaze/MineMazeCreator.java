@@ -1,31 +1,50 @@
 package minemaze;
 
+import ch.aplu.jgamegrid.Actor;
 import ch.aplu.jgamegrid.Location;
 
 /**
  * MineMazeCreator
  * ----------------
- * GRASP Creator for game actors only.
- * - Spawns grid-based actors (pusher/targets/rocks/bomber)
+ * GRASP Creator for game entities and their actors.
+ * - Spawns the machines on the grid (pusher/bomber); the board materialises
+ *   targets, rocks and other grid items chunk by chunk
  * - Spawns extra collectibles from properties (ore/fuel/booster)
+ * - Creates the JGameGrid actor that renders an entity
  * (No board rendering here.)
  */
 public final class MineMazeCreator {
     private MineMazeCreator() {}
 
-    /** Create all actors for this game. */
-    public static void createActors(MineMaze game, GameConfig cfg, MapGrid grid) {
-        spawnExtras(game, cfg);
-        spawnGridActors(game, grid, cfg.maxBombs);
-        game.setPaintOrder(Target.class); // ensure target paints under ore
+    /** Create all entities for this game on the engine's board. */
+    public static void createEntities(MineMazeEngine engine, GameConfig cfg, MapGrid grid) {
+        spawnExtras(engine.getBoard(), cfg);
+        spawnGridEntities(engine, grid, cfg.maxBombs);
     }
 
-    private static void spawnExtras(MineMaze game, GameConfig cfg) {
+    /** Create the actor used to render an entity of the type. */
+    public static Actor createActor(MineMaze.ElementType type) {
+        return switch (type) {
+            case PUSHER -> new PusherActor();
+            case BOMBER -> new BomberActor();
+            case BOMB -> new BombActor();
+            case ORE -> new Ore();
+            case TARGET -> new Target();
+            case BOULDER -> new Rock();
+            case HARD_ROCK -> new HardRock();
+            case BOOSTER -> new Booster();
+            case FUEL -> new Fuel();
+            case BOMB_MARKER -> new BombMarker();
+            default -> throw new IllegalArgumentException("No actor for " + type);
+        };
+    }
+
+    private static void spawnExtras(Board board, GameConfig cfg) {
         // Ores
         if (cfg.oreLocations != null && !cfg.oreLocations.isEmpty()) {
             for (String s : cfg.oreLocations.split(";")) {
                 String[] xy = s.split("-");
-                game.addActor(new Ore(), new Location(
+                board.add(new Entity(MineMaze.ElementType.ORE), new Location(
                         Integer.parseInt(xy[0]), Integer.parseInt(xy[1])));
             }
         }
@@ -33,7 +52,7 @@ public final class MineMazeCreator {
         if (cfg.fuelLocations != null && !cfg.fuelLocations.isEmpty()) {
             for (String s : cfg.fuelLocations.split(";")) {
                 String[] xy = s.split("-");
-                game.addActor(new Fuel(), new Location(
+                board.add(new Entity(MineMaze.ElementType.FUEL), new Location(
                         Integer.parseInt(xy[0]), Integer.parseInt(xy[1])));
             }
         }
@@ -41,38 +60,31 @@ public final class MineMazeCreator {
         if (cfg.boosterLocations != null && !cfg.boosterLocations.isEmpty()) {
             for (String s : cfg.boosterLocations.split(";")) {
                 String[] xy = s.split("-");
-                game.addActor(new Booster(), new Location(
+                board.add(new Entity(MineMaze.ElementType.BOOSTER), new Location(
                         Integer.parseInt(xy[0]), Integer.parseInt(xy[1])));
             }
         }
     }
 
-    private static void spawnGridActors(MineMaze game, MapGrid grid, int maxBombs) {
-        int w = grid.getNbHorzCells();
-        int h = grid.getNbVertCells();
-
-        for (int y = 0; y < h; y++) {
-            for (int x = 0; x < w; x++) {
-                Location loc = new Location(x, y);
-                MineMaze.ElementType t = grid.getCell(loc);
-                switch (t) {
-                    case PUSHER -> {
-                        Pusher p = new Pusher(game);
-                        game.addActor(p, loc);
-                        game.onPusherCreated(p); // inject controls
-                    }
-                    case TARGET -> game.addActor(new Target(), loc);
-                    case BOULDER -> game.addActor(new Rock(), loc);
-                    case BOOSTER -> game.addActor(new Booster(), loc);
-                    case HARD_ROCK -> game.addActor(new HardRock(), loc);
-                    case BOMBER -> {
-                        Bomber b = new Bomber(loc, maxBombs, game);
-                        game.addActor(b, loc);
-                        game.onBomberCreated(b); // inject controls/border color
-                    }
-                    default -> { /* ignore */ }
-                }
-            }
+    // The machines' start cells come from the map header: no scan of the whole map
+    private static void spawnGridEntities(MineMazeEngine engine, MapGrid grid, int maxBombs) {
+        Board board = engine.getBoard();
+        int pusherCell = grid.getPusherCell();
+        int bomberCell = grid.getBomberCell();
+        if (bomberCell >= 0 && bomberCell < pusherCell) spawnBomber(engine, grid, bomberCell, maxBombs);
+        if (pusherCell >= 0) {
+            Pusher p = new Pusher(engine);
+            board.add(p, new Location(grid.x(pusherCell), grid.y(pusherCell)));
+            engine.onPusherCreated(p); // inject controls
         }
+        if (bomberCell >= 0 && bomberCell > pusherCell) spawnBomber(engine, grid, bomberCell, maxBombs);
+    }
+
+    private static void spawnBomber(MineMazeEngine engine, MapGrid grid, int cell, int maxBombs) {
+        Board board = engine.getBoard();
+        Bomber b = new Bomber(new Location(grid.x(cell), grid.y(cell)), maxBombs, board, engine.getPathPlanner(),
+                engine.getStatistics());
+        board.add(b, b.getLocation());
+        engine.onBomberCreated(b); // inject controls
     }
-}
\ No newline at end of file
+}
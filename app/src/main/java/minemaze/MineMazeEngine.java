@@ -0,0 +1,382 @@
+package minemaze;
+
+import ch.aplu.jgamegrid.Location;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * MineMazeEngine
+ * ---------------
+ * Headless simulation core. Owns the Board and all game state, and advances the game one
+ * tick per step(). Needs no GameGrid, so many engines can run side by side in one JVM;
+ * MineMaze only renders an engine's state and forwards mouse input to it.
+ */
+public class MineMazeEngine {
+    private static final int ACTIVE_RADIUS = 1; // chunks around a machine whose grid items are on the board
+    private static final int SNAPSHOT_MAGIC = 0x4d4d534e; // "MMSN"
+    private static final int SNAPSHOT_VERSION = 3; // 2: entities carry their place in the board's lists; 3: no finished flag
+    private final GameConfig cfg;
+    private final MapGrid grid;
+    private final Board board;
+    private final PathPlanner planner;
+
+    // Primary machines
+    private Pusher pusher;
+    private Bomber bomber;
+
+    // Game state
+    private boolean finished = false;
+    private double gameDuration;
+    private final int oresWinning;
+    private int oresCollected = 0;
+    private int autoMovementIndex = 0;
+    private int ticks = 0;
+
+    // Input posted from other threads (e.g. mouse events), applied at the start of the next tick
+    private final Queue<Runnable> pendingInput = new ConcurrentLinkedQueue<>();
+
+    // Per-tick log used by tests to verify game progress
+    private final TickLog tickLog;
+    private final PhaseTimer timer = new PhaseTimer();
+
+    // Game statistics, exported to a file periodically and at the end of the game
+    private final GameStatistics statistics;
+    private Path statisticsFile;
+    private StatisticsExporter statisticsExporter;
+
+    // Optional text stream of the log, written tick by tick
+    private LogSink logSink;
+    private final StringBuilder lineBuffer = new StringBuilder(128);
+
+    public MineMazeEngine(Properties properties, MapGrid grid) {
+        this(new GameConfig(properties), grid);
+    }
+
+    public MineMazeEngine(GameConfig cfg, MapGrid grid) {
+        this(cfg, grid, new GameStatistics());
+    }
+
+    /** @param statistics where the game records its statistics; may be shared by games on several threads */
+    public MineMazeEngine(GameConfig cfg, MapGrid grid, GameStatistics statistics) {
+        this.cfg = cfg;
+        this.grid = grid;
+        this.board = new Board(grid);
+        this.planner = new PathPlanner(grid.getNbHorzCells(), grid.getNbVertCells());
+        this.gameDuration = cfg.durationSeconds;
+        this.oresWinning = cfg.oresWinning;
+        this.tickLog = new TickLog(cfg.logCapacity);
+        this.statistics = statistics;
+        if (cfg.statisticsFile != null) this.statisticsFile = Path.of(cfg.statisticsFile);
+        if (cfg.logFile != null) this.logSink = LogSink.toFile(Path.of(cfg.logFile));
+        MineMazeCreator.createEntities(this, cfg, grid);
+        materialiseNearMachines();
+    }
+
+    /** Run the whole game without rendering or sleeping and return the log. */
+    public String run() {
+        startStatisticsExport();
+        while (isRunning()) step();
+        return finish();
+    }
+
+    /**
+     * Write the statistics to the statistics file every statistics.interval until finish.
+     * Only loops that play the game to its end start this, so an engine that is stepped
+     * and then dropped leaves no periodic task behind.
+     */
+    public void startStatisticsExport() {
+        if (statisticsExporter == null && statisticsFile != null && !finished) {
+            statisticsExporter = new StatisticsExporter(statistics, statisticsFile, cfg.statisticsIntervalMs);
+        }
+    }
+
+    public boolean isRunning() {
+        return !finished && oresCollected < oresWinning && gameDuration >= 0;
+    }
+
+    /** Advance the game by one simulation period. */
+    public void step() {
+        long t = timer.start();
+        Runnable input;
+        while ((input = pendingInput.poll()) != null) input.run();
+
+        gameDuration -= cfg.simulationPeriodMs / 1000.0;
+        ticks++;
+
+        long bomberNanos = 0; // the bomber moves in two parts, recorded as one phase
+        if (cfg.autoMode) {
+            if (pusher != null) pusher.autoMoveNext(autoMovementIndex);
+            timer.stop(PhaseTimer.Phase.PUSHER_PLANNING, t);
+            t = timer.start();
+            if (bomber != null) bomber.autoMoveNext(autoMovementIndex);
+            bomberNanos = timer.elapsed(t);
+            t = timer.start();
+            if (pusher != null) pusher.executeNextPathStep();
+            autoMovementIndex++;
+        } else {
+            timer.stop(PhaseTimer.Phase.PUSHER_PLANNING, t);
+            t = timer.start();
+            if (pusher != null) pusher.executeNextPathStep();
+        }
+        timer.stop(PhaseTimer.Phase.PUSHER_STEP, t);
+
+        t = timer.start();
+        if (bomber != null) bomber.handleMovement();
+        materialiseNearMachines();
+        timer.record(PhaseTimer.Phase.BOMBER_MOVEMENT, bomberNanos + timer.elapsed(t));
+
+        t = timer.start();
+        updateBombs();
+        timer.stop(PhaseTimer.Phase.UPDATE_BOMBS, t);
+
+        t = timer.start();
+        tickLog.record(autoMovementIndex, pusher != null ? pusher.getFuel() : 0, board);
+        if (logSink != null) {
+            lineBuffer.setLength(0);
+            tickLog.appendLine(lineBuffer, tickLog.size() - 1);
+            logSink.append(lineBuffer.append('\n'));
+        }
+        timer.stop(PhaseTimer.Phase.LOG, t);
+    }
+
+    /**
+     * End the game, record the result line and return the log kept in memory as text: every
+     * tick, or the last log.capacity ticks (by default only the last one when log.file streams
+     * the whole log).
+     */
+    public String finish() {
+        if (!finished) {
+            tickLog.setResult(isWon() ? "You won" : "You lost");
+            finished = true;
+            if (cfg.profileReport) System.out.print(timer.report());
+            if (statisticsExporter != null) statisticsExporter.close();
+            else if (statisticsFile != null) new StatisticsExporter(statistics, statisticsFile, 0).close();
+            if (logSink != null) {
+                logSink.append(tickLog.getResult());
+                logSink.close();
+            }
+        }
+        return tickLog.toString();
+    }
+
+    /**
+     * Capture the complete game state between two steps: clock, score, every entity on the
+     * board with its position, visibility and place in its list, bomb fuses, and the
+     * pusher's and bomber's fuel, booster, plans and paths. The snapshot holds only state,
+     * a few bytes per entity; configuration, scripts and the map come from the engine it is restored into.
+     * Statistics, queued input and the tick log are not part of it.
+     * @throws IllegalStateException if the game has finished, as a finished game is not restored
+     */
+    public byte[] snapshot() {
+        if (finished) throw new IllegalStateException("cannot snapshot a finished game");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(grid.getChecksum());
+            out.writeInt(ticks);
+            out.writeInt(autoMovementIndex);
+            out.writeDouble(gameDuration);
+            out.writeInt(oresCollected);
+
+            int chunks = board.getChunkCount();
+            out.writeInt(chunks);
+            for (int chunk = 0; chunk < chunks; chunk++) out.writeBoolean(board.isMaterialised(chunk));
+            out.writeLong(board.getNextOrder());
+            for (MineMaze.ElementType type : MineMaze.ElementType.values()) {
+                List<Entity> list = board.getEntities(type);
+                out.writeInt(list.size());
+                for (Entity e : list) {
+                    out.writeInt(TickLog.pack(e.getX(), e.getY()));
+                    out.writeBoolean(e.isVisible());
+                    out.writeLong(e.getOrder());
+                    if (e instanceof Bomb bomb) bomb.writeState(out);
+                }
+            }
+            if (pusher != null) pusher.writeState(out);
+            if (bomber != null) bomber.writeState(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // not thrown by an in-memory stream
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Put the game back in the state of a snapshot taken from an engine with the same
+     * configuration and map (this one or another). The tick log is cleared, so the log
+     * continues from the snapshot's tick. The snapshot is read in full before the game is
+     * touched, so a bad one leaves the game as it was.
+     * @throws IllegalArgumentException if the data is not a snapshot of a game on this map
+     * @throws IllegalStateException if this game has finished: its log sink and statistics
+     *         export are closed, so it cannot be played on
+     */
+    public void restore(byte[] snapshot) {
+        if (finished) throw new IllegalStateException("cannot restore a finished game");
+        int restoredTicks, restoredMovementIndex, restoredOres;
+        double restoredDuration;
+        boolean[] materialised;
+        long nextOrder;
+        List<Entity> restored = new ArrayList<>();
+        List<Location> locations = new ArrayList<>();
+        List<Long> orders = new ArrayList<>();
+        List<Boolean> visibles = new ArrayList<>();
+        Runnable pusherState = null, bomberState = null;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) throw new IllegalArgumentException("not a game snapshot");
+            int version = in.readInt();
+            if (version != SNAPSHOT_VERSION) throw new IllegalArgumentException("unsupported snapshot version " + version);
+            if (in.readLong() != grid.getChecksum()) throw new IllegalArgumentException("snapshot of a different map");
+            restoredTicks = in.readInt();
+            restoredMovementIndex = in.readInt();
+            restoredDuration = in.readDouble();
+            restoredOres = in.readInt();
+
+            materialised = new boolean[in.readInt()];
+            if (materialised.length != board.getChunkCount()) throw new IllegalArgumentException("snapshot of a different map");
+            for (int chunk = 0; chunk < materialised.length; chunk++) materialised[chunk] = in.readBoolean();
+            nextOrder = in.readLong();
+            int[] counts = new int[MineMaze.ElementType.values().length];
+            for (MineMaze.ElementType type : MineMaze.ElementType.values()) {
+                int count = in.readInt();
+                boolean machine = type == MineMaze.ElementType.PUSHER || type == MineMaze.ElementType.BOMBER;
+                if (count < 0 || machine && count > 1) throw new IllegalArgumentException("bad " + type + " count " + count);
+                counts[type.ordinal()] = count;
+                for (int i = 0; i < count; i++) {
+                    Location location = Machine.readLocation(in);
+                    boolean visible = in.readBoolean();
+                    long order = in.readLong();
+                    Entity e = switch (type) {
+                        case PUSHER -> pusher;
+                        case BOMBER -> bomber;
+                        case BOMB -> Bomb.readState(in, location, board, statistics);
+                        default -> new Entity(type);
+                    };
+                    if (e == null) throw new IllegalArgumentException("snapshot has a " + type + " this game does not");
+                    restored.add(e);
+                    visibles.add(visible);
+                    locations.add(location);
+                    orders.add(order);
+                }
+            }
+            if (pusher != null) pusherState = pusher.readState(in, counts);
+            if (bomber != null) bomberState = bomber.readState(in, counts);
+            if (in.read() >= 0) throw new IllegalArgumentException("game snapshot too long");
+        } catch (IOException e) {
+            throw new IllegalArgumentException("truncated game snapshot", e);
+        }
+
+        // Everything is read and checked: put the game in the snapshot's state
+        ticks = restoredTicks;
+        autoMovementIndex = restoredMovementIndex;
+        gameDuration = restoredDuration;
+        oresCollected = restoredOres;
+        board.reset(materialised, nextOrder);
+        for (int i = 0; i < restored.size(); i++) {
+            Entity e = restored.get(i);
+            if (visibles.get(i)) e.show();
+            else e.hide();
+            board.add(e, locations.get(i), orders.get(i));
+        }
+        if (pusherState != null) pusherState.run();
+        if (bomberState != null) bomberState.run();
+        tickLog.clear();
+        pendingInput.clear();
+    }
+
+    /**
+     * Stream every tick's log line to the sink as it is produced (replacing any sink set
+     * by the log.file property). The sink is closed when the game finishes.
+     */
+    public void setLogSink(LogSink logSink) {
+        this.logSink = logSink;
+    }
+
+    /**
+     * Write the statistics to this file instead of the one set by the statistics.file
+     * property; null turns the export off. Takes effect if set before the first step.
+     */
+    public void setStatisticsFile(Path statisticsFile) {
+        this.statisticsFile = statisticsFile;
+    }
+
+    /** Queue a left-click: guide the pusher towards the location. */
+    public void guidePusher(Location target) {
+        pendingInput.add(() -> {
+            if (pusher != null) pusher.guideToLocation(target);
+        });
+    }
+
+    /** Queue a right-click: send the bomber to drop a bomb at the location. */
+    public void requestBomb(Location target) {
+        pendingInput.add(() -> {
+            if (bomber != null && !bomber.isBusy() && bomber.getBombsAvailable() > 0) {
+                Entity marker = new Entity(MineMaze.ElementType.BOMB_MARKER);
+                board.add(marker, target);
+                bomber.startMoveToBomb(target);
+                bomber.setPendingBombMarker(marker);
+            }
+        });
+    }
+
+    void onPusherCreated(Pusher p) {
+        this.pusher = p;
+        p.setupPusher(cfg.autoMode, cfg.pusherMoves);
+    }
+
+    void onBomberCreated(Bomber b) {
+        this.bomber = b;
+        b.setupBomberControls(cfg.bomberMoves);
+    }
+
+    /** Bring the grid items in the chunks around each machine onto the board. */
+    private void materialiseNearMachines() {
+        if (pusher != null) board.materialiseAround(pusher.getLocation(), ACTIVE_RADIUS);
+        if (bomber != null) board.materialiseAround(bomber.getLocation(), ACTIVE_RADIUS);
+    }
+
+    private void updateBombs() {
+        if (bomber == null) return;
+        Iterator<Bomb> it = bomber.getBombs().iterator();
+        while (it.hasNext()) {
+            Bomb b = it.next();
+            if (b.isActive()) {
+                b.tick();
+                if (!b.isActive()) it.remove();
+            }
+        }
+    }
+
+    public void incrementOresCollected() {
+        oresCollected++;
+    }
+
+    public Board getBoard() { return board; }
+    public PathPlanner getPathPlanner() { return planner; }
+    public TickLog getTickLog() { return tickLog; }
+    public GameStatistics getStatistics() { return statistics; }
+    /** @return the per-phase tick timings; render phases are recorded by MineMaze */
+    public PhaseTimer getPhaseTimer() { return timer; }
+    public GameConfig getConfig() { return cfg; }
+    public MapGrid getGrid() { return grid; }
+    public Pusher getPusher() { return pusher; }
+    public Bomber getBomber() { return bomber; }
+    public int getOresCollected() { return oresCollected; }
+    public int getOresWinning() { return oresWinning; }
+    public double getRemainingSeconds() { return gameDuration; }
+    public int getAutoMovementIndex() { return autoMovementIndex; }
+    public int getTickCount() { return ticks; }
+    public boolean isWon() { return oresCollected == oresWinning; }
+    public boolean isFinished() { return finished; }
+}
@@ -0,0 +1,72 @@
+package minemaze;
+
+/**
+ * MovementScript
+ * ---------------
+ * A movement property (e.g. "11-7;10-7;Bomb") compiled once at load time into an int array.
+ * Each command is either a target cell packed as (x << 16 | y) or the BOMB opcode,
+ * so the game loop reads commands without any string parsing.
+ */
+public final class MovementScript {
+    public static final int BOMB = -1;
+    private static final int MAX_COORDINATE = 0x7fff;
+
+    private final int[] commands;
+
+    private MovementScript(int[] commands) {
+        this.commands = commands;
+    }
+
+    /**
+     * Compile a ';'-separated script.
+     * @param property   property name, used in error messages
+     * @param allowBomb  whether the BOMB_COMMAND is accepted
+     * @throws IllegalArgumentException naming the property and the entry index of the first bad command
+     */
+    public static MovementScript compile(String property, String text, boolean allowBomb) {
+        if (text == null || text.isEmpty()) return new MovementScript(new int[0]);
+
+        String[] entries = text.split(";");
+        int[] commands = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            String entry = entries[i].trim();
+            if (entry.equals(MineMaze.BOMB_COMMAND)) {
+                if (!allowBomb) throw invalid(property, i, entry, MineMaze.BOMB_COMMAND + " is not allowed here");
+                commands[i] = BOMB;
+                continue;
+            }
+            String[] xy = entry.split("-");
+            if (xy.length != 2) throw invalid(property, i, entry, "expected x-y");
+            try {
+                int x = Integer.parseInt(xy[0]);
+                int y = Integer.parseInt(xy[1]);
+                if (x > MAX_COORDINATE || y > MAX_COORDINATE) throw invalid(property, i, entry, "coordinate too large");
+                commands[i] = pack(x, y);
+            } catch (NumberFormatException e) {
+                throw invalid(property, i, entry, "expected x-y");
+            }
+        }
+        return new MovementScript(commands);
+    }
+
+    private static IllegalArgumentException invalid(String property, int index, String entry, String reason) {
+        return new IllegalArgumentException(property + " entry " + index + " '" + entry + "': " + reason);
+    }
+
+    private static int pack(int x, int y) {
+        return x << 16 | y;
+    }
+
+    public int size() { return commands.length; }
+
+    public boolean isBomb(int i) { return commands[i] == BOMB; }
+
+    public int getX(int i) { return commands[i] >>> 16; }
+
+    public int getY(int i) { return commands[i] & 0xffff; }
+
+    /** @return the command in property syntax */
+    public String toString(int i) {
+        return isBomb(i) ? MineMaze.BOMB_COMMAND : getX(i) + "-" + getY(i);
+    }
+}
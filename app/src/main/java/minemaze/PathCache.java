@@ -0,0 +1,53 @@
+package minemaze;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * PathCache
+ * ----------
+ * Remembers planned paths by (start, target) for one obstacle version of the board.
+ * Any change of version drops every entry, so a cached path is never stale.
+ * Bounded, least-recently-used entries are evicted first.
+ */
+public final class PathCache {
+    private final Map<Long, int[]> paths;
+    private long version = Long.MIN_VALUE;
+    private int hits;
+    private int misses;
+
+    public PathCache(int capacity) {
+        this.paths = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /** @return the cached cells from start (excluded) towards target, or null when not cached */
+    public int[] get(int start, int target, long obstacleVersion) {
+        if (obstacleVersion != version) {
+            paths.clear();
+            version = obstacleVersion;
+        }
+        int[] path = paths.get(key(start, target));
+        if (path == null) misses++; else hits++;
+        return path;
+    }
+
+    /** Store the result of the planner's last query. */
+    public int[] put(int start, int target, PathPlanner planner) {
+        int[] path = new int[planner.getPathLength()];
+        for (int i = 0; i < path.length; i++) path[i] = planner.getStep(i);
+        paths.put(key(start, target), path);
+        return path;
+    }
+
+    public int getHits() { return hits; }
+    public int getMisses() { return misses; }
+
+    private static long key(int start, int target) {
+        return ((long) start << 32) | (target & 0xffffffffL);
+    }
+}
@@ -0,0 +1,249 @@
+package minemaze;
+
+import java.util.Arrays;
+
+/**
+ * PathPlanner
+ * ------------
+ * A* shortest-path search on a 4-connected grid with a Manhattan heuristic.
+ * Cells are int indices (y * width + x). The per-cell search state is kept in blocks of
+ * CHUNK_SIZE x CHUNK_SIZE cells (the board's chunks), allocated the first time a search
+ * reaches the chunk, so memory follows the area searched rather than the map size.
+ * Blocks, heap and path are reused, so a query does not allocate once they have grown;
+ * generation stamps stand in for clearing them between queries.
+ * What may be entered is decided by a StepRule supplied with each query.
+ */
+public final class PathPlanner {
+
+    /** Decides whether a machine may step into (toX, toY) moving by (dx, dy) after `steps` steps. */
+    @FunctionalInterface
+    public interface StepRule {
+        boolean canStep(int toX, int toY, int dx, int dy, int steps);
+    }
+
+    private static final int[] DX = {1, -1, 0, 0};
+    private static final int[] DY = {0, 0, 1, -1};
+
+    private static final int CHUNK_SHIFT = 4;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int CHUNK_CELLS = CHUNK_SIZE * CHUNK_SIZE;
+    private static final int NODE_SHIFT = 2 * CHUNK_SHIFT;
+
+    // Per-cell search state, FIELDS ints per cell; valid only where SEEN == generation
+    private static final int SEEN = 0;
+    private static final int G = 1;
+    private static final int F = 2;
+    private static final int CAME_FROM = 3;
+    private static final int HEAP_INDEX = 4;
+    private static final int CLOSED = 5;
+    private static final int FIELDS = 6;
+
+    private final int width;
+    private final int height;
+    private final int chunkXBits; // chunk columns, rounded up to a power of two
+
+    // Search nodes are numbered chunk by chunk: node = (chunk y << chunkXBits | chunk x) << NODE_SHIFT | cell in chunk
+    private final int[][] blocks; // per chunk, null until a search reaches it
+    private int generation = 0;
+
+    // Binary min-heap of nodes ordered by f (then h), with HEAP_INDEX for decrease-key; the
+    // keys are kept alongside, so sifting does not look nodes up
+    private int[] heap = new int[CHUNK_CELLS];
+    private int[] heapF = new int[CHUNK_CELLS];
+    private int[] heapG = new int[CHUNK_CELLS];
+    private int heapSize;
+
+    // Result of the last query as cell indices, start excluded
+    private int[] path = new int[CHUNK_CELLS];
+    private int pathLength;
+
+    public PathPlanner(int width, int height) {
+        this.width = width;
+        this.height = height;
+        int chunksX = (width + CHUNK_MASK) >> CHUNK_SHIFT;
+        this.chunkXBits = 32 - Integer.numberOfLeadingZeros(chunksX - 1);
+        this.blocks = new int[((height + CHUNK_MASK) >> CHUNK_SHIFT) << chunkXBits][];
+    }
+
+    public int index(int x, int y) { return y * width + x; }
+    public int x(int cell) { return cell % width; }
+    public int y(int cell) { return cell / width; }
+
+    /**
+     * Plan a path from start to goal of at most maxSteps steps.
+     * If the goal cannot be reached, the path leads to the reached cell closest to the goal
+     * (fewest steps on ties, so a blocked neighbour yields an empty path).
+     * @return the number of steps in the path; read them with getStep
+     */
+    public int plan(int start, int goal, int maxSteps, StepRule rule) {
+        pathLength = 0;
+        if (start == goal || maxSteps <= 0) return 0;
+        if (++generation == 0) {
+            for (int[] block : blocks) {
+                if (block != null) Arrays.fill(block, 0);
+            }
+            generation = 1;
+        }
+
+        int gx = x(goal), gy = y(goal);
+        int startNode = node(x(start), y(start));
+        int goalNode = node(gx, gy);
+        heapSize = 0;
+        int startH = heuristic(x(start), y(start), gx, gy);
+        open(startNode, 0, startH, -1);
+
+        int best = startNode;
+        int bestH = startH;
+        while (heapSize > 0) {
+            int node = poll();
+            set(node, CLOSED, 1);
+            if (node == goalNode) { best = node; break; }
+
+            int cx = nodeX(node), cy = nodeY(node);
+            int g = get(node, G);
+            int h = get(node, F) - g;
+            if (h < bestH || (h == bestH && g < get(best, G))) { best = node; bestH = h; }
+            if (g >= maxSteps) continue;
+
+            for (int d = 0; d < 4; d++) {
+                int nx = cx + DX[d], ny = cy + DY[d];
+                if (nx < 0 || nx >= width || ny < 0 || ny >= height) continue;
+                int next = node(nx, ny);
+                int ng = g + 1;
+                if (isSeen(next) && (get(next, CLOSED) != 0 || ng >= get(next, G))) continue;
+                if (!rule.canStep(nx, ny, DX[d], DY[d], g)) continue;
+                open(next, ng, ng + heuristic(nx, ny, gx, gy), node);
+            }
+        }
+
+        // Walk back from the chosen end node
+        int length = 0;
+        for (int n = best; n != startNode; n = get(n, CAME_FROM)) length++;
+        if (length > path.length) path = new int[Math.max(length, path.length * 2)];
+        int i = length;
+        for (int n = best; n != startNode; n = get(n, CAME_FROM)) path[--i] = index(nodeX(n), nodeY(n));
+        pathLength = length;
+        return length;
+    }
+
+    /** @return the i-th cell of the last planned path (0 = first step) */
+    public int getStep(int i) {
+        return path[i];
+    }
+
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    private static int heuristic(int x, int y, int gx, int gy) {
+        return Math.abs(x - gx) + Math.abs(y - gy);
+    }
+
+    private int node(int x, int y) {
+        int chunk = (y >> CHUNK_SHIFT) << chunkXBits | x >> CHUNK_SHIFT;
+        return chunk << NODE_SHIFT | (y & CHUNK_MASK) << CHUNK_SHIFT | (x & CHUNK_MASK);
+    }
+
+    private int nodeX(int node) {
+        return ((node >>> NODE_SHIFT) & ((1 << chunkXBits) - 1)) << CHUNK_SHIFT | (node & CHUNK_MASK);
+    }
+
+    private int nodeY(int node) {
+        return (node >>> (NODE_SHIFT + chunkXBits)) << CHUNK_SHIFT | (node >> CHUNK_SHIFT) & CHUNK_MASK;
+    }
+
+    private int get(int node, int field) {
+        return blocks[node >>> NODE_SHIFT][(node & (CHUNK_CELLS - 1)) * FIELDS + field];
+    }
+
+    private void set(int node, int field, int value) {
+        blocks[node >>> NODE_SHIFT][(node & (CHUNK_CELLS - 1)) * FIELDS + field] = value;
+    }
+
+    private boolean isSeen(int node) {
+        int[] block = blocks[node >>> NODE_SHIFT];
+        return block != null && block[(node & (CHUNK_CELLS - 1)) * FIELDS + SEEN] == generation;
+    }
+
+    private void open(int node, int gScore, int fScore, int from) {
+        boolean queued = isSeen(node);
+        if (!queued) {
+            if (blocks[node >>> NODE_SHIFT] == null) blocks[node >>> NODE_SHIFT] = new int[CHUNK_CELLS * FIELDS];
+            set(node, SEEN, generation);
+            set(node, CLOSED, 0);
+        }
+        set(node, G, gScore);
+        set(node, F, fScore);
+        set(node, CAME_FROM, from);
+        if (queued) {
+            int i = get(node, HEAP_INDEX);
+            heapF[i] = fScore;
+            heapG[i] = gScore;
+            siftUp(i);
+        } else {
+            if (heapSize == heap.length) {
+                heap = Arrays.copyOf(heap, heap.length * 2);
+                heapF = Arrays.copyOf(heapF, heap.length);
+                heapG = Arrays.copyOf(heapG, heap.length);
+            }
+            heap[heapSize] = node;
+            heapF[heapSize] = fScore;
+            heapG[heapSize] = gScore;
+            siftUp(heapSize++);
+        }
+    }
+
+    private int poll() {
+        int top = heap[0];
+        if (--heapSize > 0) {
+            move(heapSize, 0);
+            siftDown(0);
+        }
+        return top;
+    }
+
+    // Compares heap entries i and j
+    private boolean less(int i, int j) {
+        if (heapF[i] != heapF[j]) return heapF[i] < heapF[j];
+        return heapG[i] > heapG[j]; // prefer deeper nodes (smaller h) on equal f
+    }
+
+    private void move(int from, int to) {
+        heap[to] = heap[from];
+        heapF[to] = heapF[from];
+        heapG[to] = heapG[from];
+        set(heap[to], HEAP_INDEX, to);
+    }
+
+    private void siftUp(int i) {
+        int node = heap[i], f = heapF[i], g = heapG[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (f > heapF[parent] || f == heapF[parent] && g <= heapG[parent]) break;
+            move(parent, i);
+            i = parent;
+        }
+        put(i, node, f, g);
+    }
+
+    private void siftDown(int i) {
+        int node = heap[i], f = heapF[i], g = heapG[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && less(child + 1, child)) child++;
+            if (heapF[child] > f || heapF[child] == f && heapG[child] <= g) break;
+            move(child, i);
+            i = child;
+        }
+        put(i, node, f, g);
+    }
+
+    private void put(int i, int node, int f, int g) {
+        heap[i] = node;
+        heapF[i] = f;
+        heapG[i] = g;
+        set(node, HEAP_INDEX, i);
+    }
+}
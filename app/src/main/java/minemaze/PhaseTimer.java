@@ -0,0 +1,74 @@
+package minemaze;
+
+/**
+ * PhaseTimer
+ * -----------
+ * Latency histograms for the phases of a tick, to see where tick time goes.
+ * Usage: long t = timer.start(); ...; timer.stop(Phase.X, t);
+ * Each phase is recorded by one thread only (simulation phases by the loop driving the
+ * engine, render phases by the render thread), and recording does not allocate.
+ */
+public final class PhaseTimer {
+    public enum Phase {
+        PUSHER_PLANNING("pusher planning"),
+        PUSHER_STEP("pusher step"),
+        BOMBER_MOVEMENT("bomber movement"),
+        UPDATE_BOMBS("update bombs"),
+        LOG("log"),
+        RENDER("render"),
+        HUD("hud");
+
+        private final String label;
+
+        Phase(String label) { this.label = label; }
+        public String getLabel() { return label; }
+    }
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Phase.values().length];
+    private volatile boolean enabled = true;
+
+    public PhaseTimer() {
+        for (Phase phase : Phase.values()) histograms[phase.ordinal()] = new LatencyHistogram();
+    }
+
+    /** @return a start timestamp for {@link #stop}, or 0 while disabled */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void stop(Phase phase, long start) {
+        if (start != 0) histograms[phase.ordinal()].record(System.nanoTime() - start);
+    }
+
+    /** @return the nanoseconds since start, or 0 while disabled; for phases timed in parts */
+    public long elapsed(long start) {
+        return start != 0 ? System.nanoTime() - start : 0;
+    }
+
+    public void record(Phase phase, long nanos) {
+        if (enabled) histograms[phase.ordinal()].record(nanos);
+    }
+
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public boolean isEnabled() { return enabled; }
+
+    public LatencyHistogram getHistogram(Phase phase) {
+        return histograms[phase.ordinal()];
+    }
+
+    /** @return one line per phase that recorded anything: count, total, mean and percentiles */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-16s %8s %10s %9s %9s %9s %9s %9s%n",
+                "phase", "count", "total ms", "mean us", "p50 us", "p90 us", "p99 us", "max us"));
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram h = histograms[phase.ordinal()];
+            if (h.getCount() == 0) continue;
+            sb.append(String.format("%-16s %8d %10.2f %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    phase.getLabel(), h.getCount(), h.getTotalNanos() / 1e6, h.getMean() / 1e3,
+                    h.getValueAtPercentile(50) / 1e3, h.getValueAtPercentile(90) / 1e3,
+                    h.getValueAtPercentile(99) / 1e3, h.getMax() / 1e3));
+        }
+        return sb.toString();
+    }
+}
@@ -1,35 +1,56 @@
 package minemaze;
 
 import ch.aplu.jgamegrid.*;
-import java.awt.*;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
 import java.util.List;
 
 /**
- * Pusher actor with path planning, movement, fuel, and booster logic migrated from MineMaze.
+ * Pusher machine with path planning, movement, fuel, and booster logic.
+ * All rule checks run against the engine's Board.
  */
 public class Pusher extends Machine {
-    private List<String> controls = null;
-    private final MineMaze controller;
+    private MovementScript controls = null;
+    private final MineMazeEngine engine;
+    private final Board board;
+    private final MapGrid grid;
+    private final GameStatistics statistics;
+    private boolean pruneDeadCells = false; // see setPruneDeadCells
+    private boolean pruning = false;        // pruneDeadCells, and no ore to spare in the current plan
+
+    // Occupancy masks of element types that block a move
+    private static final int PUSHER_BLOCKERS = Board.bit(MineMaze.ElementType.BORDER) | Board.bit(MineMaze.ElementType.HARD_ROCK)
+            | Board.bit(MineMaze.ElementType.BOULDER) | Board.bit(MineMaze.ElementType.BOMBER);
+    private static final int ORE_BLOCKERS = PUSHER_BLOCKERS | Board.bit(MineMaze.ElementType.PUSHER);
 
     // Path planning state
+    private final PathPlanner planner;
+    private final PathPlanner.StepRule stepRule = this::canStep;
     private List<Location> pusherPath = new ArrayList<>();
     private int currentPathIndex = 0;
 
     // Fuel and booster state
     private int fuel;
-    private final int fuelRefillAmount = 100;
+    static final int FUEL_REFILL = 100;
+    static final int BOOSTER_CHARGES = 3; // rock pushes per booster
     private boolean boosterReady = false;
     private int boosterCharges = 0;
     private boolean boosterActivated = false;
 
-    public Pusher(MineMaze controller) {
-        super(true, "sprites/pusher.png");
-        this.controller = controller;
-        this.fuel = 100; // Default, can be set via setupPusher if needed
+    public Pusher(MineMazeEngine engine) {
+        super(MineMaze.ElementType.PUSHER);
+        this.engine = engine;
+        this.board = engine.getBoard();
+        this.grid = engine.getGrid();
+        this.statistics = engine.getStatistics();
+        this.planner = engine.getPathPlanner();
+        this.fuel = engine.getConfig().initialFuel;
     }
 
-    public void setupPusher(boolean isAutoMode, List<String> pusherControls) {
+    public void setupPusher(boolean isAutoMode, MovementScript pusherControls) {
         this.controls = pusherControls;
     }
 
@@ -38,54 +59,77 @@ public class Pusher extends Machine {
             return;
         }
 
-        String currentMove = controls.get(autoMovementIndex);
-        String[] parts = currentMove.split("-");
-
-        if (parts.length == 2) {
-            int targetX = Integer.parseInt(parts[0]);
-            int targetY = Integer.parseInt(parts[1]);
-            Location targetLocation = new Location(targetX, targetY);
+        if (engine.isFinished()) return;
 
-            if (controller.isFinished()) return;
-
-            guideToLocation(targetLocation);
-        }
+        guideToLocation(controls.getX(autoMovementIndex), controls.getY(autoMovementIndex));
     }
 
     /**
-     * Plan a simple straight-line path (horizontal then vertical) to the given target.
+     * Plan a shortest path (A*) to the given target, limited to the remaining fuel.
+     * If the target cannot be reached, the path leads as close to it as possible.
      */
     public void guideToLocation(Location target) {
-        if (controller.isFinished()) return;
+        guideToLocation(target.x, target.y);
+    }
+
+    private void guideToLocation(int targetX, int targetY) {
+        if (engine.isFinished()) return;
 
         Location start = getLocation();
         pusherPath.clear();
         currentPathIndex = 0;
+        if (targetX < 0 || targetX >= board.getNbHorzCells() || targetY < 0 || targetY >= board.getNbVertCells()) return;
 
-        // Horizontal leg
-        if (start.x != target.x) {
-            int dx = target.x > start.x ? 1 : -1;
-            for (int x = start.x + dx; x != target.x + dx; x += dx) {
-                Location step = new Location(x, start.y);
-                if (canMove(step, controller)) pusherPath.add(step); else break;
-            }
+        pruning = pruneDeadCells && visibleOres() <= engine.getOresWinning() - engine.getOresCollected();
+        int steps = planner.plan(planner.index(start.x, start.y), planner.index(targetX, targetY), fuel, stepRule);
+        for (int i = 0; i < steps; i++) {
+            int cell = planner.getStep(i);
+            pusherPath.add(new Location(planner.x(cell), planner.y(cell)));
         }
-        // Vertical leg
-        Location last = pusherPath.isEmpty() ? start : pusherPath.get(pusherPath.size() - 1);
-        if (last.y != target.y) {
-            int dy = target.y > last.y ? 1 : -1;
-            for (int y = last.y + dy; y != target.y + dy; y += dy) {
-                Location step = new Location(last.x, y);
-                if (canMove(step, controller)) pusherPath.add(step); else break;
-            }
+    }
+
+    /**
+     * Off by default: parking a spare ore in a dead cell (MapGrid.isDeadCell) is a legal
+     * move, and often a useful one. On, the planner does not push an ore into a dead cell
+     * while no ore is to spare, i.e. every ore left is needed to win.
+     */
+    public void setPruneDeadCells(boolean prune) {
+        this.pruneDeadCells = prune;
+    }
+
+    private int visibleOres() {
+        int[] count = {0};
+        board.forEachVisible(MineMaze.ElementType.ORE, (x, y) -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * Planning rule: border, hard rock and bomber block; an ore may be entered only if it
+     * can be pushed one tile on (and not into a dead cell when pruning); a rock while
+     * the booster has charges left. The charges used along the way are not counted, as
+     * pickups are not credited to the fuel limit: executeNextPathStep stops at a rock
+     * once they run out.
+     */
+    private boolean canStep(int toX, int toY, int dx, int dy, int steps) {
+        int occupants = board.occupancyAt(toX, toY);
+        if ((occupants & (PUSHER_BLOCKERS & ~Board.bit(MineMaze.ElementType.BOULDER))) != 0) return false;
+        if ((occupants & Board.bit(MineMaze.ElementType.BOULDER)) != 0) {
+            if (!boosterReady || boosterCharges <= 0) return false;
+            if ((board.occupancyAt(toX + dx, toY + dy) & PUSHER_BLOCKERS) != 0) return false;
+        }
+        if ((occupants & Board.bit(MineMaze.ElementType.ORE)) != 0) {
+            int beyond = board.occupancyAt(toX + dx, toY + dy);
+            if ((beyond & (ORE_BLOCKERS | Board.bit(MineMaze.ElementType.ORE))) != 0) return false;
+            if (pruning && grid.isDeadCell(toX + dx, toY + dy)) return false;
         }
+        return true;
     }
 
     /**
      * Execute the next step along the planned path.
      */
     public void executeNextPathStep() {
-        if (fuel <= 0) { pusherPath.clear(); currentPathIndex = 0; controller.refresh(); return; }
+        if (fuel <= 0) { pusherPath.clear(); currentPathIndex = 0; return; }
         if (currentPathIndex >= pusherPath.size()) return;
 
         Location next = pusherPath.get(currentPathIndex);
@@ -98,13 +142,14 @@ public class Pusher extends Machine {
         else if (next.y < cur.y) setDirection(Location.NORTH);
 
         // Booster: push rock 1 tile ahead (if active)
-        Rock rockAtNext = (Rock) controller.getOneActorAt(next, Rock.class);
+        Entity rockAtNext = board.getOneAt(next, MineMaze.ElementType.BOULDER);
         if (rockAtNext != null && boosterReady && boosterCharges > 0) {
             Location pushTo = next.getNeighbourLocation(getDirection());
-            if (canMove(pushTo, controller)) {
+            if (canMove(pushTo, board)) {
                 rockAtNext.setLocation(pushTo);
-                if (!boosterActivated && boosterCharges == 3) boosterActivated = true;
+                if (!boosterActivated && boosterCharges == BOOSTER_CHARGES) boosterActivated = true;
                 if (--boosterCharges == 0) boosterReady = false;
+                statistics.recordBoosterUsed();
             }
         }
 
@@ -113,51 +158,42 @@ public class Pusher extends Machine {
             setLocation(next);
 
             // Fuel consumption
-            if (fuel > 0) fuel--;
+            int fuelUsed = fuel > 0 ? 1 : 0;
+            fuel -= fuelUsed;
+            statistics.recordPusherMove(fuelUsed);
 
             // Pickup: Fuel → refill
-            Fuel can = (Fuel) controller.getOneActorAt(getLocation(), Fuel.class);
-            if (can != null) { can.removeSelf(); fuel = fuel + fuelRefillAmount; }
+            Entity can = board.getOneAt(getLocation(), MineMaze.ElementType.FUEL);
+            if (can != null) { can.removeSelf(); fuel = fuel + FUEL_REFILL; }
 
             // Pickup: Booster → 3 charges
-            Booster booster = (Booster) controller.getOneActorAt(getLocation(), Booster.class);
+            Entity booster = board.getOneAt(getLocation(), MineMaze.ElementType.BOOSTER);
             if (booster != null) {
                 if (!boosterReady && boosterCharges == 0 || boosterActivated) {
                     booster.removeSelf();
-                    boosterReady = true; boosterCharges = 3; boosterActivated = false;
+                    boosterReady = true; boosterCharges = BOOSTER_CHARGES; boosterActivated = false;
+                    statistics.recordBoosterPickup();
                 }
             }
 
-            // Reveal target under pusher (visual only)
-            Target tgt = (Target) controller.getOneActorAt(getLocation(), Target.class);
-            if (tgt != null) tgt.show();
-
             currentPathIndex++;
             if (fuel == 0) { pusherPath.clear(); currentPathIndex = 0; }
-            controller.refresh();
         } else {
             // Blocked: discard remaining plan
-            pusherPath.clear(); currentPathIndex = 0; controller.refresh();
+            pusherPath.clear(); currentPathIndex = 0;
         }
     }
 
     private boolean canMoveWithOrePushing(Location next) {
-        Color c = controller.getBg().getColor(next);
-        if (c.equals(controller.getBorderColor())) return false;
-
-        // Impassables
-        if (controller.getOneActorAt(next, Wall.class) != null) return false;
-        if (controller.getOneActorAt(next, HardRock.class) != null) return false;
-        if (controller.getOneActorAt(next, Rock.class) != null) return false;
-        if (controller.getOneActorAt(next, Bomber.class) != null) return false;
+        // Impassables (border included)
+        if ((board.occupancyAt(next) & PUSHER_BLOCKERS) != 0) return false;
 
         // Ore push rule
-        Ore ore = (Ore) controller.getOneActorAt(next, Ore.class);
+        Entity ore = board.getOneAt(next, MineMaze.ElementType.ORE);
         if (ore != null) {
             Location dirFrom = getLocation();
             Location.CompassDirection pushDir = getPushDirection(dirFrom, next);
             Location dest = next.getNeighbourLocation(pushDir);
-            ore.setDirection(pushDir);
             if (canOreMoveToLocation(ore, dest)) { moveOreToLocation(ore, dest); return true; }
             return false;
         }
@@ -172,62 +208,79 @@ public class Pusher extends Machine {
         return Location.EAST;
     }
 
-    private boolean canOreMoveToLocation(Ore ore, Location dest) {
-        if (dest.x < 0 || dest.x >= controller.getNbHorzCells() || dest.y < 0 || dest.y >= controller.getNbVertCells()) return false;
-        Color c = controller.getBg().getColor(dest);
-        if (c.equals(controller.getBorderColor())) return false;
-        if (controller.getOneActorAt(dest, Rock.class) != null) return false;
-        if (controller.getOneActorAt(dest, Wall.class) != null) return false;
-        if (controller.getOneActorAt(dest, HardRock.class) != null) return false;
-        if (controller.getOneActorAt(dest, Pusher.class) != null) return false;
-        if (controller.getOneActorAt(dest, Bomber.class) != null) return false;
-        Ore other = (Ore) controller.getOneActorAt(dest, Ore.class);
+    private boolean canOreMoveToLocation(Entity ore, Location dest) {
+        if ((board.occupancyAt(dest) & ORE_BLOCKERS) != 0) return false;
+        Entity other = board.getOneAt(dest, MineMaze.ElementType.ORE);
         return other == null || other == ore;
     }
 
-    private void moveOreToLocation(Ore ore, Location dest) {
+    private void moveOreToLocation(Entity ore, Location dest) {
         Location cur = ore.getLocation();
-        Target t = (Target) controller.getOneActorAt(cur, Target.class);
-        if (t != null) { t.show(); ore.show(0); }
+        if (board.has(cur, MineMaze.ElementType.TARGET)) ore.show();
 
         ore.setLocation(dest);
 
         // Arrived: hide ore when sitting on target and count towards win
-        Target newT = (Target) controller.getOneActorAt(dest, Target.class);
-        if (newT != null) { controller.incrementOresCollected(); ore.hide(); }
+        if (board.has(dest, MineMaze.ElementType.TARGET)) { engine.incrementOresCollected(); ore.hide(); }
     }
 
     @Override
-    protected boolean canMove(Location loc, GameGrid grid) {
-        Color c = controller.getBg().getColor(loc);
-        if (c.equals(controller.getBorderColor())) return false;
-        if (controller.getOneActorAt(loc, Wall.class) != null) return false;
-        if (controller.getOneActorAt(loc, HardRock.class) != null) return false;
+    protected boolean canMove(Location loc, Board board) {
+        int occupants = board.occupancyAt(loc);
+        if ((occupants & (Board.bit(MineMaze.ElementType.BORDER) | Board.bit(MineMaze.ElementType.HARD_ROCK))) != 0) return false;
 
         // Rock is generally blocking unless a booster push is feasible (one tile ahead is free)
-        if (controller.getOneActorAt(loc, Rock.class) != null) {
+        if ((occupants & Board.bit(MineMaze.ElementType.BOULDER)) != 0) {
             if (boosterReady && boosterCharges > 0) {
                 Location pLoc = getLocation();
                 int dx = Integer.compare(loc.x, pLoc.x);
                 int dy = Integer.compare(loc.y, pLoc.y);
                 if (Math.abs(dx) + Math.abs(dy) == 1) {
                     Location pushTo = new Location(loc.x + dx, loc.y + dy);
-                    Color c2 = controller.getBg().getColor(pushTo);
-                    if (!c2.equals(controller.getBorderColor())
-                            && controller.getOneActorAt(pushTo, Rock.class) == null
-                            && controller.getOneActorAt(pushTo, Wall.class) == null
-                            && controller.getOneActorAt(pushTo, HardRock.class) == null
-                            && controller.getOneActorAt(pushTo, Bomber.class) == null) {
+                    if ((board.occupancyAt(pushTo) & PUSHER_BLOCKERS) == 0) {
                         return true;
                     }
                 }
             }
             return false;
         }
-        if (controller.getOneActorAt(loc, Bomber.class) != null) return false;
-        return true;
+        return (occupants & Board.bit(MineMaze.ElementType.BOMBER)) == 0;
+    }
+
+    @Override
+    void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeInt(fuel);
+        out.writeBoolean(boosterReady);
+        out.writeInt(boosterCharges);
+        out.writeBoolean(boosterActivated);
+        writeLocations(out, pusherPath);
+        out.writeInt(currentPathIndex);
+    }
+
+    @Override
+    Runnable readState(DataInput in, int[] counts) throws IOException {
+        Runnable machine = super.readState(in, counts);
+        int fuel = in.readInt();
+        boolean boosterReady = in.readBoolean();
+        int boosterCharges = in.readInt();
+        boolean boosterActivated = in.readBoolean();
+        List<Location> path = readLocations(in);
+        int pathIndex = in.readInt();
+        return () -> {
+            machine.run();
+            this.fuel = fuel;
+            this.boosterReady = boosterReady;
+            this.boosterCharges = boosterCharges;
+            this.boosterActivated = boosterActivated;
+            pusherPath = path;
+            currentPathIndex = pathIndex;
+        };
     }
 
-    // Accessors for MineMaze logging
+    // Accessors for MineMazeEngine logging and the HUD
     public int getFuel() { return fuel; }
-}
\ No newline at end of file
+    public int getBoosterCharges() { return boosterCharges; }
+    boolean isBoosterReady() { return boosterReady; }
+    boolean isBoosterActivated() { return boosterActivated; }
+}
@@ -0,0 +1,9 @@
+package minemaze;
+
+import ch.aplu.jgamegrid.Actor;
+
+public class PusherActor extends Actor {
+    public PusherActor() {
+        super(true, "sprites/pusher.png");
+    }
+}
@@ -0,0 +1,343 @@
+package minemaze;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Solver
+ * -------
+ * Searches for pusher and bomber movement scripts that win a game: ores.winning ores
+ * on targets before the time runs out, with the fuel and bombs the game starts with.
+ * The search is weighted A* over GameState (one tick per edge), guided by the push
+ * distance of the nearest ores to a target. Pushes into dead cells are not tried once no
+ * ore is to spare (GameState.withDeadCellPruning), states where the remaining ticks cannot
+ * cover the remaining pushes are pruned, and a state reached before with as much fuel is
+ * not searched again.
+ * It runs a portfolio in parallel, one search per thread, each with its own heuristic
+ * weight and move order; the first script found wins. Scripts are not the shortest.
+ * Usage: Solver [--threads N] [--max-nodes N] <file.properties>
+ * Prints the scripts as properties, ready to paste over the file's movement lines.
+ */
+public final class Solver {
+    private static final int UNREACHABLE = Integer.MAX_VALUE / 4; // no heuristic reaches it; dead cells are beyond it
+    // Heuristic weights of the workers: plain A* (1) drowns in the equally good pusher walks
+    private static final double[] WEIGHTS = {3, 2, 5, 1.5};
+
+    /**
+     * A script that wins the game, or none, with the cost of the search: the most states
+     * each thread held in its open and closed sets at once, summed over the threads, and the
+     * process heap in use (garbage included) sampled while searching.
+     */
+    public record Result(List<GameState.Command> commands, String pusherMovements, String bomberMovements,
+                         long nodes, long elapsedNanos, long storedStates, long heapBytes, int threads) {
+        public boolean isSolved() { return commands != null; }
+
+        public double getNodesPerSecond() { return elapsedNanos == 0 ? 0 : nodes * 1e9 / elapsedNanos; }
+    }
+
+    private static final class Node {
+        final GameState state;
+        final Node parent;
+        final GameState.Command command;
+        final int g;
+        final double f;
+        final int h;
+
+        Node(GameState state, Node parent, GameState.Command command, int g, int h, double weight) {
+            this.state = state;
+            this.parent = parent;
+            this.command = command;
+            this.g = g;
+            this.h = h;
+            this.f = g + weight * h;
+        }
+    }
+
+    private final GameState start;
+    private final double periodSeconds;
+    private final int threads;
+    private final long maxNodes;
+    private final int width;
+    private final int[] goalDistance; // MapGrid.getPushDistances: pushes to the nearest target, walls only
+
+    private final LongAdder nodes = new LongAdder();
+    private final AtomicBoolean stopped = new AtomicBoolean();
+    private final LongAdder storedStates = new LongAdder(); // per worker, the largest closed set of its searches
+    private final LongAccumulator peakHeap = new LongAccumulator(Math::max, 0); // heap in use, sampled while searching
+
+    /**
+     * @param start    the state to solve from, e.g. GameState.of(a new engine)
+     * @param cfg      the game's configuration, for the length of a tick
+     * @param maxNodes expansions over all threads before giving up
+     */
+    public Solver(GameState start, GameConfig cfg, int threads, long maxNodes) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be at least 1: " + threads);
+        this.start = start.withDeadCellPruning();
+        this.periodSeconds = cfg.simulationPeriodMs / 1000.0;
+        this.threads = threads;
+        this.maxNodes = maxNodes;
+        MapGrid grid = start.getGrid();
+        this.width = grid.getNbHorzCells();
+        this.goalDistance = grid.getPushDistances();
+    }
+
+    /** Run the portfolio until a script is found, the node budget is spent or every search is exhausted. */
+    public Result solve() throws InterruptedException {
+        long startNanos = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Node> solutions = Collections.synchronizedList(new ArrayList<>());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                int worker = i;
+                futures.add(pool.submit(() -> runWorker(worker, solutions)));
+            }
+            for (Future<?> f : futures) {
+                try {
+                    f.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("search failed", e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - startNanos;
+        if (solutions.isEmpty()) {
+            return new Result(null, null, null, nodes.sum(), elapsed, storedStates.sum(), peakHeap.get(), threads);
+        }
+        return toResult(solutions.get(0), elapsed);
+    }
+
+    /*
+     * Worker 0 searches with the bomber standing still, which is small and finds most
+     * scripts, then with the bomber. The others take turns at the two, each with its own
+     * heuristic weight and move order.
+     */
+    private void runWorker(int worker, List<Node> solutions) {
+        // Worker 0's searches run one after the other, so only the larger is ever held
+        LongAccumulator peak = new LongAccumulator(Math::max, 0);
+        try {
+            if (worker == 0) {
+                if (!search(WEIGHTS[0], false, null, solutions, peak)) search(WEIGHTS[0], true, null, solutions, peak);
+            } else {
+                search(WEIGHTS[worker % WEIGHTS.length], worker % 2 == 1, new Random(worker), solutions, peak);
+            }
+        } finally {
+            storedStates.add(peak.get());
+        }
+    }
+
+    /** Closed-set key: a state up to its clock and fuel. */
+    private record Position(GameState state) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Position p && state.isSamePosition(p.state);
+        }
+
+        @Override
+        public int hashCode() {
+            return state.positionHashCode();
+        }
+    }
+
+    /** @return true if a reaches its position no later than b and with no less fuel */
+    private static boolean dominates(Node a, Node b) {
+        return a.g <= b.g && a.state.getFuel() >= b.state.getFuel();
+    }
+
+    /** @return true if the search ended with a solution or was stopped, false if exhausted */
+    private boolean search(double weight, boolean moveBomber, Random order, List<Node> solutions,
+                           LongAccumulator peak) {
+        PriorityQueue<Node> open = new PriorityQueue<>(Comparator.<Node>comparingDouble(n -> n.f)
+                .thenComparingInt(n -> n.h));
+        Map<Position, Node> closed = new HashMap<>(); // best node found per position, open ones included
+        try {
+            return search(weight, moveBomber, order, solutions, open, closed);
+        } finally {
+            peak.accumulate(closed.size()); // the sets only grow, so this is their peak
+        }
+    }
+
+    private boolean search(double weight, boolean moveBomber, Random order, List<Node> solutions,
+                           PriorityQueue<Node> open, Map<Position, Node> closed) {
+        int[] distances = new int[start.getOreCount()]; // heuristic scratch; ores are only ever removed
+        int h0 = heuristic(start, distances);
+        if (h0 >= UNREACHABLE) return false;
+        Node root = new Node(start, null, null, 0, h0, weight);
+        open.add(root);
+        closed.put(new Position(start), root);
+        List<GameState.Command> commands = new ArrayList<>();
+        long expanded = 0;
+        while (!open.isEmpty()) {
+            if (stopped.get()) return true;
+            Node node = open.poll();
+            Node best = closed.get(new Position(node.state));
+            if (best != node && dominates(best, node)) continue;
+            if (node.state.isWon()) {
+                solutions.add(node);
+                stopped.set(true);
+                return true;
+            }
+            if (!node.state.isRunning()) continue;
+            nodes.increment();
+            if ((++expanded & 1023) == 0) {
+                Runtime rt = Runtime.getRuntime();
+                peakHeap.accumulate(rt.totalMemory() - rt.freeMemory());
+                if (nodes.sum() > maxNodes) {
+                    stopped.set(true);
+                    return true;
+                }
+            }
+
+            commands(node.state, moveBomber, commands);
+            if (order != null) Collections.shuffle(commands, order);
+            for (GameState.Command c : commands) {
+                GameState next = node.state.step(c);
+                int h = heuristic(next, distances);
+                if (h >= UNREACHABLE || !hasTimeFor(next, h)) continue;
+                Node child = new Node(next, node, c, node.g + 1, h, weight);
+                Position key = new Position(next);
+                Node seen = closed.get(key);
+                if (seen != null && dominates(seen, child)) continue;
+                closed.put(key, child);
+                open.add(child);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The commands worth trying: every pusher move allowed from the state and, when the
+     * bomber takes part, every bomber action while it has bombs to drop. Standing still
+     * is only tried while it can change something: a bomb burning or the bomber moving.
+     */
+    private static void commands(GameState s, boolean moveBomber, List<GameState.Command> out) {
+        out.clear();
+        boolean bombsBurning = s.getBombCount() > 0;
+        GameState.Move[] moves = GameState.Move.values();
+        for (GameState.Move p : moves) {
+            if (p != GameState.Move.NONE && !s.canMovePusher(p)) continue;
+            if (p != GameState.Move.NONE || bombsBurning) out.add(new GameState.Command(p, GameState.Move.NONE, false));
+            if (!moveBomber || !s.hasBomber() || s.getBombsAvailable() == 0) continue;
+            for (GameState.Move b : moves) {
+                if (b != GameState.Move.NONE && s.canMoveBomber(b)) out.add(new GameState.Command(p, b, false));
+            }
+            out.add(new GameState.Command(p, GameState.Move.NONE, true));
+        }
+    }
+
+    /**
+     * Pushes still needed: the push distances of the nearest ores that are still to be
+     * collected, plus the pusher's walk to the nearest of them.
+     * @param distances scratch space for at least as many ores as the state has
+     */
+    private int heuristic(GameState s, int[] distances) {
+        int needed = s.getOresWinning() - s.getOresCollected();
+        if (needed <= 0) return 0;
+        int ores = s.getOreCount();
+        if (ores < needed) return UNREACHABLE;
+        int walk = UNREACHABLE;
+        for (int i = 0; i < ores; i++) {
+            int x = s.getOreX(i), y = s.getOreY(i);
+            distances[i] = goalDistance[y * width + x];
+            if (distances[i] < UNREACHABLE) {
+                walk = Math.min(walk, Math.abs(x - s.getPusherX()) + Math.abs(y - s.getPusherY()) - 1);
+            }
+        }
+        // Sum the needed smallest: a partial selection sort, as few ores are needed
+        int h = 0;
+        for (int i = 0; i < needed; i++) {
+            int min = i;
+            for (int j = i + 1; j < ores; j++) {
+                if (distances[j] < distances[min]) min = j;
+            }
+            if (distances[min] >= UNREACHABLE) return UNREACHABLE;
+            h += distances[min];
+            distances[min] = distances[i];
+        }
+        return h + Math.max(0, walk);
+    }
+
+    // The engine steps while the remaining time is not negative, so h more ticks need
+    // the time left after h - 1 of them
+    private boolean hasTimeFor(GameState s, int h) {
+        return h == 0 || s.getRemainingSeconds() - (h - 1) * periodSeconds >= -1e-9;
+    }
+
+    private Result toResult(Node goal, long elapsed) {
+        List<GameState.Command> commands = new ArrayList<>();
+        List<GameState> states = new ArrayList<>();
+        for (Node n = goal; n.parent != null; n = n.parent) {
+            commands.add(n.command);
+            states.add(n.parent.state);
+        }
+        Collections.reverse(commands);
+        Collections.reverse(states);
+
+        StringBuilder pusher = new StringBuilder();
+        StringBuilder bomber = new StringBuilder();
+        for (int i = 0; i < commands.size(); i++) {
+            GameState s = states.get(i);
+            GameState.Command c = commands.get(i);
+            if (i > 0) pusher.append(';');
+            pusher.append(s.getPusherX() + c.pusher().getDx()).append('-').append(s.getPusherY() + c.pusher().getDy());
+            if (!s.hasBomber()) continue;
+            if (i > 0) bomber.append(';');
+            if (c.bomb()) bomber.append(MineMaze.BOMB_COMMAND);
+            else bomber.append(s.getBomberX() + c.bomber().getDx()).append('-').append(s.getBomberY() + c.bomber().getDy());
+        }
+        // A bomber that only stood still needs no script
+        boolean bomberActs = commands.stream().anyMatch(c -> c.bomb() || c.bomber() != GameState.Move.NONE);
+        return new Result(commands, pusher.toString(), bomberActs ? bomber.toString() : "", nodes.sum(), elapsed,
+                storedStates.sum(), peakHeap.get(), threads);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        long maxNodes = 2_000_000;
+        Path file = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads")) threads = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--max-nodes")) maxNodes = Long.parseLong(args[++i]);
+            else file = Path.of(args[i]);
+        }
+        if (file == null) {
+            System.err.println("Usage: Solver [--threads N] [--max-nodes N] <file.properties>");
+            System.exit(2);
+        }
+
+        Properties properties = PropertiesLoader.loadPropertiesFile(file);
+        properties.setProperty("movement.mode", "auto");
+        properties.setProperty("statistics.file", "");
+        GameConfig cfg = new GameConfig(properties);
+        MapGrid grid = MapGrid.fromProperties(properties, file.toAbsolutePath().getParent());
+        Result result = new Solver(GameState.of(new MineMazeEngine(cfg, grid)), cfg, threads, maxNodes).solve();
+
+        System.out.printf("# %s: %d nodes in %.2f s (%.0f nodes/s) on %d threads, %d states stored, "
+                        + "%.1f MB process heap in use (garbage included)%n",
+                result.isSolved() ? "solved in " + result.commands().size() + " ticks" : "no solution found",
+                result.nodes(), result.elapsedNanos() / 1e9, result.getNodesPerSecond(), result.threads(),
+                result.storedStates(), result.heapBytes() / (1024.0 * 1024.0));
+        if (!result.isSolved()) System.exit(1);
+        System.out.println("movement.mode=auto");
+        System.out.println("pusher.movements=" + result.pusherMovements());
+        System.out.println("bomber.movements=" + result.bomberMovements());
+    }
+}
@@ -0,0 +1,57 @@
+package minemaze;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StatisticsExporter
+ * -------------------
+ * Writes a GameStatistics report to a file every period and once more when closed.
+ * The periodic writes run on one shared daemon thread, off the tick path: the counters
+ * can be read while the games record into them.
+ */
+public final class StatisticsExporter implements AutoCloseable {
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "MineMaze-statistics");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final GameStatistics statistics;
+    private final Path file;
+    private final ScheduledFuture<?> periodic; // null without periodic writes
+    private boolean closed;
+
+    /** @param periodMs time between writes; 0 writes only on close */
+    public StatisticsExporter(GameStatistics statistics, Path file, long periodMs) {
+        if (periodMs < 0) throw new IllegalArgumentException("period must not be negative: " + periodMs);
+        this.statistics = statistics;
+        this.file = file;
+        this.periodic = periodMs == 0 ? null
+                : SCHEDULER.scheduleAtFixedRate(this::writeQuietly, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Synchronized with close, so a late periodic write cannot replace the final report
+    private synchronized void writeQuietly() {
+        try {
+            statistics.writeTo(file);
+        } catch (IOException e) {
+            System.err.println("Cannot write statistics to " + file + ": " + e);
+        }
+    }
+
+    /** Stop the periodic writes and write the final report. */
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        if (periodic != null) periodic.cancel(false);
+        writeQuietly();
+    }
+
+    public Path getFile() { return file; }
+}
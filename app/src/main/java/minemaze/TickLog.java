@@ -0,0 +1,165 @@
+package minemaze;
+
+import java.util.Arrays;
+
+/**
+ * TickLog
+ * --------
+ * Structured per-tick game log. Each tick is stored as a compact int record
+ * (tick index, pusher fuel, then per logged element type a count followed by
+ * positions packed as x << 16 | y) instead of a formatted text line.
+ * The familiar text form ("0#Pusher:11-7-Fuel:99#Ore:...") is only produced on demand.
+ * With a capacity set, only the most recent ticks are kept (sliding window),
+ * so memory stays bounded on long runs.
+ */
+public final class TickLog {
+    /** Element types in the order they appear in a log line. */
+    public static final MineMaze.ElementType[] LOGGED_TYPES = {
+            MineMaze.ElementType.PUSHER, MineMaze.ElementType.ORE, MineMaze.ElementType.TARGET,
+            MineMaze.ElementType.BOULDER, MineMaze.ElementType.BOMBER, MineMaze.ElementType.BOMB_MARKER,
+            MineMaze.ElementType.BOOSTER, MineMaze.ElementType.HARD_ROCK
+    };
+
+    private final int capacity;
+
+    private int[] data = new int[1024];
+    private int dataSize = 0;
+
+    // Start offset in data of each kept record; records live at starts[first .. first + count)
+    private int[] starts = new int[256];
+    private int first = 0;
+    private int count = 0;
+
+    private String result = null;
+
+    private final Board.PositionVisitor putPosition = (x, y) -> put(pack(x, y));
+
+    /** @param capacity number of most recent ticks to keep, or 0 to keep every tick */
+    public TickLog(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Append one tick: the positions of all visible entities of the logged types, the
+     * map's items included whether or not their chunks are materialised.
+     */
+    public void record(int tick, int fuel, Board board) {
+        if (first + count == starts.length) starts = Arrays.copyOf(starts, starts.length * 2);
+        starts[first + count] = dataSize;
+        count++;
+
+        put(tick);
+        put(fuel);
+        for (MineMaze.ElementType type : LOGGED_TYPES) {
+            int countAt = dataSize;
+            put(0);
+            board.forEachVisible(type, putPosition);
+            data[countAt] = dataSize - countAt - 1;
+        }
+
+        if (capacity > 0 && count > capacity) {
+            first++;
+            count--;
+            if (first > count) compact();
+        }
+    }
+
+    /** Drop every record and the result line. */
+    public void clear() {
+        dataSize = 0;
+        first = 0;
+        count = 0;
+        result = null;
+    }
+
+    /** Set the final line ("You won" / "You lost"). */
+    public void setResult(String result) {
+        this.result = result;
+    }
+
+    public String getResult() { return result; }
+
+    /** @return number of ticks currently held */
+    public int size() { return count; }
+
+    public int getTick(int record) { return data[start(record)]; }
+
+    public int getFuel(int record) { return data[start(record) + 1]; }
+
+    public int getPositionCount(int record, MineMaze.ElementType type) {
+        return data[typeOffset(record, type)];
+    }
+
+    /** @return the k-th position of the type in the record, packed as x << 16 | y */
+    public int getPosition(int record, MineMaze.ElementType type, int k) {
+        return data[typeOffset(record, type) + 1 + k];
+    }
+
+    public static int pack(int x, int y) { return x << 16 | y; }
+    public static int x(int packed) { return packed >>> 16; }
+    public static int y(int packed) { return packed & 0xffff; }
+
+    /** @return the text form of one record, without the trailing newline */
+    public String getLine(int record) {
+        StringBuilder sb = new StringBuilder();
+        appendLine(sb, record);
+        return sb.toString();
+    }
+
+    /** Append the text form of one record, without the trailing newline. */
+    public void appendLine(StringBuilder sb, int record) {
+        int offset = start(record);
+        sb.append(data[offset]);
+        int fuel = data[offset + 1];
+        offset += 2;
+        for (MineMaze.ElementType type : LOGGED_TYPES) {
+            int n = data[offset++];
+            sb.append('#').append(type.getShortType());
+            for (int k = 0; k < n; k++) {
+                int p = data[offset++];
+                sb.append(k == 0 ? ':' : ',').append(x(p)).append('-').append(y(p));
+            }
+            if (type == MineMaze.ElementType.PUSHER) sb.append("-Fuel:").append(fuel);
+        }
+    }
+
+    /** @return the full text log: one line per kept tick, then the result line if the game has ended */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(count * 96);
+        for (int i = 0; i < count; i++) {
+            appendLine(sb, i);
+            sb.append('\n');
+        }
+        if (result != null) sb.append(result);
+        return sb.toString();
+    }
+
+    private int start(int record) {
+        if (record < 0 || record >= count) throw new IndexOutOfBoundsException("record " + record + " of " + count);
+        return starts[first + record];
+    }
+
+    private int typeOffset(int record, MineMaze.ElementType type) {
+        int offset = start(record) + 2;
+        for (MineMaze.ElementType t : LOGGED_TYPES) {
+            if (t == type) return offset;
+            offset += 1 + data[offset];
+        }
+        throw new IllegalArgumentException(type + " is not logged");
+    }
+
+    private void put(int value) {
+        if (dataSize == data.length) data = Arrays.copyOf(data, data.length * 2);
+        data[dataSize++] = value;
+    }
+
+    // Drop the records that slid out of the window from the front of both arrays
+    private void compact() {
+        int shift = starts[first];
+        System.arraycopy(data, shift, data, 0, dataSize - shift);
+        dataSize -= shift;
+        for (int i = 0; i < count; i++) starts[i] = starts[first + i] - shift;
+        first = 0;
+    }
+}
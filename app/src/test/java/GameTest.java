@@ -1,9 +1,26 @@
+import ch.aplu.jgamegrid.Location;
+import minemaze.Board;
+import minemaze.GameConfig;
+import minemaze.GameState;
+import minemaze.GameStatistics;
+import minemaze.LogFileReader;
 import minemaze.MapGrid;
 import minemaze.MineMaze;
+import minemaze.MineMazeEngine;
+import minemaze.PhaseTimer;
 import minemaze.PropertiesLoader;
+import minemaze.Solver;
+import minemaze.TickLog;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 
 public class GameTest {
@@ -108,6 +125,552 @@ public class GameTest {
         Assert.assertTrue(logLine15.contains("Fuel:285"));
     }
 
+    /**
+     * This tests that a fast-forward run skips the wall-clock sleep but still produces
+     *  exactly the same log as the real-time run of the same movement script
+     */
+    @Test
+    public void testFastForwardMatchesRealTime() {
+        String propertiesPath = "properties/test1.properties";
+        final Properties properties = PropertiesLoader.loadPropertiesFile(propertiesPath);
+        String realTimeLog = new MineMaze(properties, new MapGrid()).runApp(false);
+
+        final Properties fastProperties = PropertiesLoader.loadPropertiesFile(propertiesPath);
+        fastProperties.setProperty("simulation.fastForward", "true");
+        String fastLog = new MineMaze(fastProperties, new MapGrid()).runApp(false);
+
+        Assert.assertEquals(realTimeLog, fastLog);
+    }
+
+    /**
+     * This tests that the headless engine, which runs without any GameGrid, produces
+     *  exactly the same log as the rendered game
+     */
+    @Test
+    public void testHeadlessEngineMatchesRenderedGame() {
+        String propertiesPath = "properties/test3.properties";
+        final Properties properties = PropertiesLoader.loadPropertiesFile(propertiesPath);
+        String renderedLog = new MineMaze(properties, new MapGrid()).runApp(false);
+
+        String headlessLog = new MineMazeEngine(properties, new MapGrid()).run();
+
+        Assert.assertEquals(renderedLog, headlessLog);
+    }
+
+    /**
+     * This tests that a malformed movement script is reported when the properties are loaded,
+     *  naming the property and the index of the bad entry
+     */
+    @Test
+    public void testInvalidMovementScriptRejectedAtLoad() {
+        final Properties properties = PropertiesLoader.loadPropertiesFile("properties/test1.properties");
+        properties.setProperty("pusher.movements", "11-7;10-x;9-7");
+        try {
+            new GameConfig(properties);
+            Assert.fail("Expected the bad movement to be rejected");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("pusher.movements entry 1"));
+        }
+    }
+
+    /**
+     * This tests that a bounded tick log keeps only the most recent ticks, and that its
+     *  text lines are the same as those of the unbounded log
+     */
+    @Test
+    public void testBoundedTickLogKeepsRecentTicks() {
+        final Properties properties = PropertiesLoader.loadPropertiesFile("properties/test1.properties");
+        MineMazeEngine full = new MineMazeEngine(properties, new MapGrid());
+        full.run();
+
+        properties.setProperty("log.capacity", "10");
+        MineMazeEngine bounded = new MineMazeEngine(properties, new MapGrid());
+        bounded.run();
+
+        TickLog fullLog = full.getTickLog();
+        TickLog boundedLog = bounded.getTickLog();
+        Assert.assertEquals(10, boundedLog.size());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(fullLog.getLine(fullLog.size() - 10 + i), boundedLog.getLine(i));
+        }
+    }
+
+    /**
+     * This tests that the log streamed to a file matches the returned log while memory keeps
+     *  only the last tick, and that LogFileReader finds a line in the file like LogParser
+     *  does in the string, and rejects a negative line number
+     */
+    @Test
+    public void testLogStreamedToFile() throws IOException {
+        Path logFile = Files.createTempFile("minemaze", ".log");
+        final Properties properties = PropertiesLoader.loadPropertiesFile("properties/test1.properties");
+        String logResult = new MineMazeEngine(properties, new MapGrid()).run();
+
+        properties.setProperty("log.file", logFile.toString());
+        MineMazeEngine streamed = new MineMazeEngine(properties, new MapGrid());
+        while (streamed.isRunning()) {
+            streamed.step();
+            Assert.assertEquals(GameConfig.STREAMED_LOG_CAPACITY, streamed.getTickLog().size());
+        }
+        streamed.finish();
+
+        Assert.assertEquals(logResult, Files.readString(logFile));
+        try (LogFileReader reader = new LogFileReader(logFile)) {
+            Assert.assertEquals(new LogParser().getLogLine(logResult, 82), reader.getLogLine(82));
+            try {
+                reader.getLogLine(-1);
+                Assert.fail("Expected a negative line number to be rejected");
+            } catch (IndexOutOfBoundsException expected) {
+                // as for a line past the end
+            }
+        } finally {
+            Files.delete(logFile);
+        }
+    }
+
+    /**
+     * This tests that a map loaded from a file through the map property plays the same
+     *  game as the built-in map it was copied from
+     */
+    @Test
+    public void testMapLoadedFromFile() throws IOException {
+        final Properties properties = PropertiesLoader.loadPropertiesFile("properties/test1.properties");
+        String builtInLog = new MineMazeEngine(properties, new MapGrid()).run();
+
+        properties.setProperty("map", "maps/original.txt");
+        MapGrid grid = MapGrid.fromProperties(properties, null);
+        Assert.assertEquals(20, grid.getNbHorzCells());
+        Assert.assertEquals(11, grid.getNbVertCells());
+        Assert.assertEquals(builtInLog, new MineMazeEngine(properties, grid).run());
+    }
+
+    /**
+     * This tests that a map with a target walled off from the pusher is rejected when loaded
+     */
+    @Test
+    public void testUnreachableTargetRejected() throws IOException {
+        String map = "xxxxxxx\n" +
+                     "xP..xox\n" +
+                     "xxxxxxx\n";
+        try {
+            MapGrid.load(new StringReader(map), "walled");
+            Assert.fail("Expected the walled-off target to be rejected");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("target at 5-1"));
+        }
+    }
+
+    /**
+     * This tests that a map written in the binary format opens with the same header values
+     *  and plays the same game as the map it was written from
+     */
+    @Test
+    public void testBinaryMapRoundTrip() throws IOException {
+        Path mapFile = Files.createTempFile("minemaze", MapGrid.BINARY_EXTENSION);
+        final Properties properties = PropertiesLoader.loadPropertiesFile("properties/test1.properties");
+        MapGrid original = new MapGrid();
+        String builtInLog = new MineMazeEngine(properties, original).run();
+        try {
+            original.writeBinary(mapFile);
+            MapGrid mapped = MapGrid.openBinary(mapFile);
+            Assert.assertEquals(original.getNbHorzCells(), mapped.getNbHorzCells());
+            Assert.assertEquals(original.getNbVertCells(), mapped.getNbVertCells());
+            Assert.assertEquals(original.getNumberOfTargets(), mapped.getNumberOfTargets());
+            Assert.assertTrue(mapped.verifyChecksum());
+            Assert.assertEquals(builtInLog, new MineMazeEngine(properties, mapped).run());
+        } finally {
+            Files.delete(mapFile);
+        }
+    }
+
+    /**
+     * This tests that the log lists the grid items of chunks that are not materialised yet,
+     *  in the same order as a game whose whole map is materialised from the start
+     */
+    @Test
+    public void testLogIndependentOfMaterialisation() throws IOException {
+        String map = "x".repeat(64) + "\n" +
+                     "xP" + ".".repeat(18) + "r" + ".".repeat(19) + "h" + ".".repeat(19) + "r.ox\n" +
+                     "x".repeat(64) + "\n";
+        final Properties properties = PropertiesLoader.loadPropertiesFile("properties/test1.properties");
+        properties.setProperty("pusher.movements", "19-1");
+        properties.setProperty("ore.locations", "");
+        properties.setProperty("fuel.locations", "");
+        properties.setProperty("booster.locations", "");
+        MapGrid grid = MapGrid.load(new StringReader(map), "wide");
+        MineMazeEngine lazy = new MineMazeEngine(properties, grid);
+        MineMazeEngine eager = new MineMazeEngine(properties, grid);
+        eager.getBoard().materialise(0, 0, grid.getNbHorzCells() - 1, grid.getNbVertCells() - 1);
+
+        Assert.assertEquals(2, lazy.getBoard().getMaterialisedChunkCount());
+        String log = lazy.run();
+        Assert.assertEquals(3, lazy.getBoard().getMaterialisedChunkCount()); // the hard rock's chunk, on the way
+        Assert.assertEquals(eager.run(), log);
+        Assert.assertTrue(new LogParser().getLogLine(log, 0).contains("#Boulder:20-1,60-1#"));
+    }
+
+    /**
+     * This tests that a binary map cell holding no element type is reported as a bad map
+     *  when it is read
+     */
+    @Test
+    public void testBinaryMapBadCellRejected() throws IOException {
+        Path mapFile = Files.createTempFile("minemaze", MapGrid.BINARY_EXTENSION);
+        try {
+            new MapGrid().writeBinary(mapFile);
+            byte[] bytes = Files.readAllBytes(mapFile);
+            bytes[bytes.length - 1] = 100; // the last cell, 19-10
+            Files.write(mapFile, bytes);
+            MapGrid mapped = MapGrid.openBinary(mapFile);
+            Assert.assertEquals(MineMaze.ElementType.OUTSIDE, mapped.getCell(18, 10));
+            try {
+                mapped.getCell(19, 10);
+                Assert.fail("Expected the bad cell to be rejected");
+            } catch (IllegalArgumentException e) {
+                Assert.assertTrue(e.getMessage().contains("19-10"));
+            }
+        } finally {
+            Files.delete(mapFile);
+        }
+    }
+
+    /**
+     * This tests that grid items far from the machines stay as map cells, seen by the
+     *  occupancy queries, and that looking one up does not turn it into an entity
+     */
+    @Test
+    public void testGridItemsMaterialiseNearMachines() throws IOException {
+        String map = "x".repeat(64) + "\n" +
+                     "xP...r" + ".".repeat(54) + "r.ox\n" +
+                     "x".repeat(64) + "\n";
+        final Properties properties = PropertiesLoader.loadPropertiesFile("properties/test1.properties");
+        properties.setProperty("ore.locations", "");
+        properties.setProperty("fuel.locations", "");
+        properties.setProperty("booster.locations", "");
+        MineMazeEngine engine = new MineMazeEngine(properties, MapGrid.load(new StringReader(map), "wide"));
+        Board board = engine.getBoard();
+
+        Assert.assertEquals(4, board.getChunkCount());
+        Assert.assertEquals(2, board.getMaterialisedChunkCount());
+        Assert.assertEquals(1, board.getEntities(MineMaze.ElementType.BOULDER).size());
+        Assert.assertTrue(board.has(new Location(60, 1), MineMaze.ElementType.BOULDER));
+        Assert.assertNull(board.getOneAt(new Location(60, 1), MineMaze.ElementType.BOULDER));
+        Assert.assertEquals(1, board.getEntities(MineMaze.ElementType.BOULDER).size());
+        Assert.assertEquals(2, board.getMaterialisedChunkCount());
+    }
+
+    /**
+     * This tests that every simulation phase is timed once per tick
+     */
+    @Test
+    public void testPhaseTimingsRecordedPerTick() {
+        final Properties properties = PropertiesLoader.loadPropertiesFile("properties/test1.properties");
+        MineMazeEngine engine = new MineMazeEngine(properties, new MapGrid());
+        engine.run();
+
+        PhaseTimer timer = engine.getPhaseTimer();
+        for (PhaseTimer.Phase phase : new PhaseTimer.Phase[] {PhaseTimer.Phase.PUSHER_PLANNING,
+                PhaseTimer.Phase.PUSHER_STEP, PhaseTimer.Phase.BOMBER_MOVEMENT,
+                PhaseTimer.Phase.UPDATE_BOMBS, PhaseTimer.Phase.LOG}) {
+            Assert.assertEquals(engine.getTickCount(), timer.getHistogram(phase).getCount());
+        }
+        Assert.assertTrue(timer.report().contains("pusher step"));
+    }
+
+    /**
+     * This tests that pusher moves, bombs, broken rocks and boosters are counted, and
+     *  that the report is written to the statistics file at the end of the game
+     */
+    @Test
+    public void testStatisticsExportedAtGameEnd() throws IOException {
+        Path statisticsFile = Files.createTempFile("minemaze", ".txt");
+        final Properties properties = PropertiesLoader.loadPropertiesFile("properties/test4.properties");
+        properties.setProperty("statistics.file", statisticsFile.toString());
+        MineMazeEngine engine = new MineMazeEngine(properties, new MapGrid());
+        engine.run();
+
+        GameStatistics statistics = engine.getStatistics();
+        try {
+            Assert.assertEquals(14, statistics.getPusherMoves());
+            Assert.assertEquals(1, statistics.getBombsPlaced());
+            Assert.assertEquals(1, statistics.getRocksDestroyed());
+            Assert.assertEquals(1, statistics.getBoosterPickups());
+            Assert.assertEquals(3, statistics.getBoostersUsed());
+            Assert.assertEquals(18, statistics.getBomberMoves());
+            Assert.assertTrue(statistics.generateReport().contains("Bomber-1 Moves: 18"));
+            Assert.assertEquals(statistics.generateReport() + "\n", Files.readString(statisticsFile));
+        } finally {
+            Files.delete(statisticsFile);
+        }
+    }
+
+    /**
+     * This tests that an engine stepped without being run to its end does not start the
+     *  periodic statistics export, so dropping it leaves no task writing the file
+     */
+    @Test
+    public void testSteppedEngineDoesNotExportStatistics() throws Exception {
+        Path statisticsFile = Files.createTempFile("minemaze", ".txt");
+        final Properties properties = PropertiesLoader.loadPropertiesFile("properties/test4.properties");
+        properties.setProperty("statistics.file", statisticsFile.toString());
+        properties.setProperty("statistics.interval", "1");
+        MineMazeEngine engine = new MineMazeEngine(properties, new MapGrid());
+        try {
+            for (int i = 0; i < 5; i++) engine.step();
+            Thread.sleep(50);
+            Assert.assertEquals(0, Files.size(statisticsFile));
+        } finally {
+            Files.delete(statisticsFile);
+        }
+    }
+
+    /**
+     * This tests that a game restored from a mid-game snapshot, into an engine that has
+     *  already played other ticks, plays the rest of the game exactly like the original
+     */
+    @Test
+    public void testSnapshotRestoresMidGame() {
+        final Properties properties = PropertiesLoader.loadPropertiesFile("properties/test4.properties");
+        MineMazeEngine engine = new MineMazeEngine(properties, new MapGrid());
+        for (int i = 0; i < 20; i++) engine.step();
+        byte[] snapshot = engine.snapshot();
+        String[] lines = engine.run().split("\n");
+
+        MineMazeEngine restored = new MineMazeEngine(properties, new MapGrid());
+        for (int i = 0; i < 5; i++) restored.step();
+        restored.restore(snapshot);
+        Assert.assertEquals(20, restored.getTickCount());
+        Assert.assertEquals(String.join("\n", Arrays.copyOfRange(lines, 20, lines.length)), restored.run());
+    }
+
+    /**
+     * This tests that a finished game, whose log sink and statistics export are closed,
+     *  can neither be snapshotted nor restored to an earlier snapshot and played on
+     */
+    @Test
+    public void testRestoreAfterFinishRejected() {
+        final Properties properties = PropertiesLoader.loadPropertiesFile("properties/test4.properties");
+        MineMazeEngine engine = new MineMazeEngine(properties, new MapGrid());
+        engine.step();
+        byte[] snapshot = engine.snapshot();
+        engine.run();
+        try {
+            engine.restore(snapshot);
+            Assert.fail("Expected restoring a finished game to be rejected");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(engine.isFinished());
+        }
+        try {
+            engine.snapshot();
+            Assert.fail("Expected a snapshot of a finished game to be rejected");
+        } catch (IllegalStateException e) {
+            // nothing could restore it
+        }
+    }
+
+    /**
+     * This tests that a truncated snapshot is rejected before the game is touched, so the
+     *  game plays on as if the restore had not been tried
+     */
+    @Test
+    public void testBadSnapshotLeavesGameUntouched() {
+        final Properties properties = PropertiesLoader.loadPropertiesFile("properties/test4.properties");
+        String log = new MineMazeEngine(properties, new MapGrid()).run();
+
+        MineMazeEngine engine = new MineMazeEngine(properties, new MapGrid());
+        for (int i = 0; i < 20; i++) engine.step();
+        byte[] snapshot = engine.snapshot();
+        MineMazeEngine other = new MineMazeEngine(properties, new MapGrid());
+        for (int i = 0; i < 30; i++) other.step();
+        String before = other.getTickLog().toString();
+        try {
+            other.restore(Arrays.copyOf(snapshot, snapshot.length - 1));
+            Assert.fail("Expected the truncated snapshot to be rejected");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(30, other.getTickCount());
+        }
+        Assert.assertEquals(before, other.getTickLog().toString());
+        Assert.assertEquals(log, other.run());
+    }
+
+    /**
+     * This tests that stepping a forked game state leaves the original untouched, and
+     *  ends where the engine ends when it runs the same moves as movement scripts
+     */
+    @Test
+    public void testForkedStateMatchesEngine() {
+        final Properties properties = PropertiesLoader.loadPropertiesFile("properties/test4.properties");
+        properties.setProperty("pusher.movements", "");
+        properties.setProperty("bomber.movements", "");
+        MapGrid grid = new MapGrid();
+        GameState start = GameState.of(new MineMazeEngine(properties, grid));
+
+        GameState.Command[] commands = {
+                GameState.Command.pusher(GameState.Move.NORTH), GameState.Command.pusher(GameState.Move.WEST),
+                GameState.Command.bomber(GameState.Move.EAST), GameState.Command.dropBomb(),
+                GameState.Command.pusher(GameState.Move.WEST), GameState.Command.WAIT, GameState.Command.WAIT,
+                GameState.Command.WAIT, GameState.Command.WAIT, GameState.Command.pusher(GameState.Move.EAST)};
+        List<String> pusherMoves = new ArrayList<>();
+        List<String> bomberMoves = new ArrayList<>();
+        GameState state = start;
+        for (GameState.Command c : commands) {
+            pusherMoves.add((state.getPusherX() + c.pusher().getDx()) + "-" + (state.getPusherY() + c.pusher().getDy()));
+            bomberMoves.add(c.bomb() ? "Bomb"
+                    : (state.getBomberX() + c.bomber().getDx()) + "-" + (state.getBomberY() + c.bomber().getDy()));
+            state = state.step(c);
+        }
+
+        properties.setProperty("pusher.movements", String.join(";", pusherMoves));
+        properties.setProperty("bomber.movements", String.join(";", bomberMoves));
+        MineMazeEngine engine = new MineMazeEngine(properties, grid);
+        Assert.assertEquals(start, GameState.of(engine));
+        for (int i = 0; i < commands.length; i++) engine.step();
+
+        Assert.assertEquals(state, GameState.of(engine));
+        Assert.assertEquals(commands.length, state.getTick());
+        Assert.assertEquals(0, state.getBombCount());
+        Assert.assertNotEquals(start, state);
+        Assert.assertEquals(11, start.getPusherX());
+        Assert.assertEquals(8, start.getPusherY());
+    }
+
+    /**
+     * This tests that the movement scripts found by the solver win the game when the
+     *  engine plays them
+     */
+    @Test
+    public void testSolverScriptsWinGame() throws InterruptedException {
+        final Properties properties = PropertiesLoader.loadPropertiesFile("properties/test4.properties");
+        MapGrid grid = new MapGrid();
+        GameConfig cfg = new GameConfig(properties);
+        Solver.Result result = new Solver(GameState.of(new MineMazeEngine(cfg, grid)), cfg, 2, 1_000_000).solve();
+        Assert.assertTrue(result.isSolved());
+
+        properties.setProperty("pusher.movements", result.pusherMovements());
+        properties.setProperty("bomber.movements", result.bomberMovements());
+        MineMazeEngine engine = new MineMazeEngine(properties, grid);
+        engine.run();
+        Assert.assertTrue(engine.isWon());
+        Assert.assertEquals(result.commands().size(), engine.getTickCount());
+    }
+
+    /**
+     * This tests that the solver plans within fuel.initial: a corridor that takes six
+     *  moves is solved with six units of fuel and not with five
+     */
+    @Test
+    public void testSolverRespectsInitialFuel() throws IOException, InterruptedException {
+        final Properties properties = PropertiesLoader.loadPropertiesFile("properties/test1.properties");
+        properties.setProperty("ore.locations", "3-1");
+        properties.setProperty("fuel.locations", "");
+        properties.setProperty("booster.locations", "");
+        properties.setProperty("ores.winning", "1");
+        MapGrid grid = MapGrid.load(new StringReader("xxxxxxxxxx\nxP......ox\nxxxxxxxxxx\n"), "corridor");
 
+        properties.setProperty("fuel.initial", "5");
+        GameConfig cfg = new GameConfig(properties);
+        Assert.assertFalse(new Solver(GameState.of(new MineMazeEngine(cfg, grid)), cfg, 1, 100_000).solve().isSolved());
 
+        properties.setProperty("fuel.initial", "6");
+        cfg = new GameConfig(properties);
+        Solver.Result result = new Solver(GameState.of(new MineMazeEngine(cfg, grid)), cfg, 1, 100_000).solve();
+        Assert.assertTrue(result.isSolved());
+        Assert.assertEquals("2-1;3-1;4-1;5-1;6-1;7-1", result.pusherMovements());
+    }
+
+    /**
+     * This tests that the dead cells of the built-in map are its corners and dead ends, and
+     *  that pushing an ore into one is a legal move that only an opted-in search prunes,
+     *  and only while no ore is to spare
+     */
+    @Test
+    public void testDeadCells() {
+        MapGrid grid = new MapGrid();
+        Assert.assertTrue(grid.isDeadCell(5, 1));   // corner
+        Assert.assertTrue(grid.isDeadCell(6, 1));   // along the top wall, away from any target
+        Assert.assertTrue(grid.isDeadCell(11, 8));  // the pusher's start, a dead end
+        Assert.assertTrue(grid.isDeadCell(0, 0));   // outside
+        Assert.assertTrue(grid.isDeadCell(-1, 5));  // off the map
+        Assert.assertFalse(grid.isDeadCell(18, 5)); // target
+        Assert.assertFalse(grid.isDeadCell(4, 7));  // the ores of the test games
+        Assert.assertFalse(grid.isDeadCell(5, 2));
+        Assert.assertFalse(grid.isDeadCell(7, 5));
+        Assert.assertEquals(grid.isDeadCell(6, 4), grid.getDeadCells().get(grid.index(6, 4)));
+        Assert.assertEquals(0, grid.getPushDistance(18, 5));
+        Assert.assertEquals(1, grid.getPushDistance(17, 5));
+        Assert.assertEquals(MapGrid.UNREACHABLE, grid.getPushDistance(5, 1));
+
+        // Ore at 6-2, pusher walked below it: a push north would put the ore against the top wall
+        final Properties properties = PropertiesLoader.loadPropertiesFile("properties/test1.properties");
+        properties.setProperty("pusher.movements", "");
+        properties.setProperty("bomber.movements", "");
+        properties.setProperty("ore.locations", "6-2");
+        MineMazeEngine engine = new MineMazeEngine(properties, grid);
+        GameState state = GameState.of(engine);
+        GameState.Move n = GameState.Move.NORTH, w = GameState.Move.WEST;
+        for (GameState.Move m : new GameState.Move[]{n, n, n, w, w, w, n, w, w, n}) {
+            state = state.step(GameState.Command.pusher(m));
+        }
+        Assert.assertTrue(state.has(6, 2, MineMaze.ElementType.ORE));
+        Assert.assertEquals(6, state.getPusherX());
+        Assert.assertEquals(3, state.getPusherY());
+        Assert.assertTrue(state.canMovePusher(GameState.Move.NORTH));
+        Assert.assertFalse(state.withDeadCellPruning().canMovePusher(GameState.Move.NORTH));
+        GameState pushed = state.step(GameState.Command.pusher(GameState.Move.NORTH));
+        Assert.assertTrue(pushed.has(6, 1, MineMaze.ElementType.ORE));
+
+        // The same walk in auto mode, then 6-1 as the target: the pusher's planner pushes the
+        // ore north against the wall and on into the corner at 5-1, unless it prunes dead
+        // cells, when it goes round by the west and pushes the ore east into a live cell
+        properties.setProperty("pusher.movements", "11-7;10-7;9-7;8-7;8-6;8-5;8-4;7-4;6-4;6-3"
+                + ";6-1;6-1;6-1;6-1;6-1;6-1;6-1;6-1");
+        engine = new MineMazeEngine(properties, new MapGrid());
+        for (int i = 0; i < 18; i++) engine.step();
+        state = GameState.of(engine);
+        Assert.assertEquals(6, state.getPusherX());
+        Assert.assertEquals(1, state.getPusherY());
+        Assert.assertTrue(state.has(5, 1, MineMaze.ElementType.ORE));
+
+        engine = new MineMazeEngine(properties, new MapGrid());
+        engine.getPusher().setPruneDeadCells(true);
+        for (int i = 0; i < 18; i++) engine.step();
+        state = GameState.of(engine);
+        Assert.assertEquals(6, state.getPusherX());
+        Assert.assertEquals(1, state.getPusherY());
+        Assert.assertTrue(state.has(7, 2, MineMaze.ElementType.ORE));
+        Assert.assertFalse(grid.isDeadCell(7, 2));
+
+        // With an ore to spare (two ores, one to win) the pruning search may park one
+        properties.setProperty("pusher.movements", "");
+        properties.setProperty("ore.locations", "6-2;4-7");
+        properties.setProperty("ores.winning", "1");
+        state = GameState.of(new MineMazeEngine(properties, grid)).withDeadCellPruning();
+        for (GameState.Move m : new GameState.Move[]{n, n, n, w, w, w, n, w, w, n}) {
+            state = state.step(GameState.Command.pusher(m));
+        }
+        Assert.assertTrue(state.canMovePusher(GameState.Move.NORTH));
+    }
+
+    /**
+     * This tests that a boosted pusher plans a path through a rock that is further away
+     *  than it has booster charges
+     */
+    @Test
+    public void testBoostedPathThroughDistantRock() throws IOException {
+        String map = "xxxxxxxxxxxx\n" +
+                     "xP......r.ox\n" +
+                     "xxxxxxxxxxxx\n";
+        final Properties properties = PropertiesLoader.loadPropertiesFile("properties/test1.properties");
+        properties.setProperty("pusher.movements", "2-1;9-1");
+        properties.setProperty("ore.locations", "");
+        properties.setProperty("fuel.locations", "");
+        properties.setProperty("booster.locations", "2-1");
+        MineMazeEngine engine = new MineMazeEngine(properties, MapGrid.load(new StringReader(map), "corridor"));
+        for (int i = 0; i < 9; i++) engine.step();
+
+        GameState state = GameState.of(engine);
+        Assert.assertEquals(9, state.getPusherX());
+        Assert.assertTrue(state.has(10, 1, MineMaze.ElementType.BOULDER));
+        Assert.assertEquals(1, state.getBoosterCharges()); // the rock was pushed from 8-1 to 10-1
+    }
 }
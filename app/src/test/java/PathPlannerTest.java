@@ -0,0 +1,45 @@
+import minemaze.PathPlanner;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PathPlannerTest {
+    // 7x5 grid, 'x' blocks; the wall at x=3 has its only gap at the bottom row
+    private static final String[] MAZE = {
+            "...x...",
+            "...x...",
+            "...x...",
+            "...x...",
+            ".......",
+    };
+
+    private static final PathPlanner.StepRule OPEN = (x, y, dx, dy, steps) -> MAZE[y].charAt(x) != 'x';
+
+    @Test
+    public void testDetourAroundWall() {
+        PathPlanner planner = new PathPlanner(7, 5);
+        int steps = planner.plan(planner.index(1, 1), planner.index(5, 1), 100, OPEN);
+
+        // down to the gap, across, and back up: 3 + 4 + 3
+        Assert.assertEquals(10, steps);
+        int last = planner.getStep(steps - 1);
+        Assert.assertEquals(5, planner.x(last));
+        Assert.assertEquals(1, planner.y(last));
+    }
+
+    @Test
+    public void testBlockedNeighbourGivesEmptyPath() {
+        PathPlanner planner = new PathPlanner(7, 5);
+        PathPlanner.StepRule closed = (x, y, dx, dy, steps) -> OPEN.canStep(x, y, dx, dy, steps) && y != 4;
+
+        Assert.assertEquals(0, planner.plan(planner.index(2, 1), planner.index(3, 1), 100, closed));
+    }
+
+    @Test
+    public void testStepLimitStopsShort() {
+        PathPlanner planner = new PathPlanner(7, 5);
+        int steps = planner.plan(planner.index(0, 4), planner.index(6, 4), 4, OPEN);
+
+        Assert.assertEquals(4, steps);
+        Assert.assertEquals(4, planner.x(planner.getStep(3)));
+    }
+}